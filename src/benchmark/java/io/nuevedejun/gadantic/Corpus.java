@@ -0,0 +1,66 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.util.RandomRegistry;
+import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixed corpus of seeded genotypes shared by all benchmarks, so that runs are comparable.
+ */
+final class Corpus {
+  /**
+   * Number of individuals in each corpus.
+   */
+  static final int SIZE = 1024;
+
+  private static final long SEED = 0x9de1_0a11L;
+
+  private Corpus() {throw new UnsupportedOperationException("do not instantiate");}
+
+  /**
+   * Creates random genotypes, most of which violate the plot constraint.
+   *
+   * @return the raw corpus
+   */
+  static List<Phenotype<IntegerGene, Double>> raw() {
+    return RandomRegistry.with(new Random(SEED), r -> factory().instances()
+        .limit(SIZE)
+        .map(g -> Phenotype.<IntegerGene, Double>of(g, 1))
+        .toList());
+  }
+
+  /**
+   * Creates random genotypes that satisfy the plot constraint.
+   *
+   * @return the valid corpus
+   */
+  static List<Phenotype<IntegerGene, Double>> valid() {
+    final var constraint = new PlotConstraint(new Iterables.Shuffler.Impl());
+    return RandomRegistry.with(new Random(SEED), r -> constraint.constrain(factory()).instances()
+        .limit(SIZE)
+        .map(g -> Phenotype.<IntegerGene, Double>of(g, 1))
+        .toList());
+  }
+
+  /**
+   * Builds a configuration mapping from its defaults, as Quarkus would without overrides.
+   *
+   * @param <T> the mapping type
+   * @param type the mapping interface
+   * @return the mapping instance
+   */
+  static <T> T defaults(final Class<T> type) {
+    return new SmallRyeConfigBuilder().withMapping(type).build().getConfigMapping(type);
+  }
+
+  private static Genotype<IntegerGene> factory() {
+    return Genotype.of(IntegerChromosome.of(0, Crop.len(), 9 * 9));
+  }
+}
@@ -0,0 +1,72 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.IntegerGene;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.util.ISeq;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EngineBenchmark {
+
+  @Param({"DIRECT", "GREEDY"})
+  private PlotEncoding.Kind kind;
+
+  private FitnessEvaluator evaluator;
+  private Engine<IntegerGene, Double> engine;
+  private EvolutionStart<IntegerGene, Double> start;
+
+  @Setup
+  public void setUp() {
+    final var properties = Corpus.defaults(GeneticProperties.class);
+    final var configuration = new AppConfiguration(properties);
+    final var lineage = new Lineage(properties);
+    final var encoding = PlotEncoding.of(kind);
+    final var phenotype = new PlotPhenotype.Impl(Corpus.defaults(FitnessCoefficients.class),
+        encoding, new FitnessCache(Corpus.defaults(FitnessCache.Settings.class)), lineage);
+    final var constraint = new PlotConstraint(new Iterables.Shuffler.Impl());
+    evaluator = new FitnessEvaluator(phenotype, properties,
+        new EvolutionMetrics(new SimpleMeterRegistry(), constraint));
+    engine = configuration.engine(phenotype, encoding, evaluator, constraint,
+        configuration.selector(), lineage);
+    // always evolve the same seeded population, evaluated once beforehand
+    final var population = Corpus.valid().stream()
+        .limit(properties.populationSize())
+        .collect(ISeq.toISeq());
+    start = EvolutionStart.of(engine.eval(population), 1);
+  }
+
+  @TearDown
+  public void tearDown() {
+    evaluator.close();
+  }
+
+  /**
+   * Evolves one generation, which is what {@link Engine#stream} does for each element.
+   */
+  @Benchmark
+  public EvolutionResult<IntegerGene, Double> generation() {
+    return engine.evolve(start);
+  }
+}
@@ -0,0 +1,55 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PlotConstraintBenchmark {
+
+  private final PlotConstraint constraint = new PlotConstraint(new Iterables.Shuffler.Impl());
+  private List<Phenotype<IntegerGene, Double>> raw;
+  private List<Phenotype<IntegerGene, Double>> valid;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    raw = Corpus.raw();
+    valid = Corpus.valid();
+  }
+
+  /**
+   * Tests valid individuals, which have to be scanned completely before being approved.
+   */
+  @Benchmark
+  public boolean test() {
+    next = (next + 1) % Corpus.SIZE;
+    return constraint.test(valid.get(next));
+  }
+
+  /**
+   * Repairs random individuals, as the engine does with invalid offspring.
+   */
+  @Benchmark
+  public Phenotype<IntegerGene, Double> repair() {
+    next = (next + 1) % Corpus.SIZE;
+    return constraint.repair(raw.get(next), 1);
+  }
+}
@@ -0,0 +1,75 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.nuevedejun.gadantic.PlotDecoder.Kernel;
+import io.nuevedejun.gadantic.PlotDecoder.Snapshot;
+import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PlotDecoderBenchmark {
+
+  private final PlotDecoder decoder = new PlotDecoder.Impl();
+  private final Kernel kernel = new Kernel();
+  private List<Phenotype<IntegerGene, Double>> corpus;
+  private final List<Snapshot> parents = new ArrayList<>();
+  private final List<Genotype<IntegerGene>> children = new ArrayList<>();
+  private int next;
+
+  @Setup
+  public void setUp() {
+    corpus = Corpus.valid();
+    // each child swaps one single-tile crop of its parent, like a typical point mutation
+    for (final var individual : corpus) {
+      final var genotype = individual.genotype();
+      parents.add(kernel.evaluate(genotype).snapshot());
+      final int[] genes = genotype.chromosome().as(IntegerChromosome.class).toArray();
+      final var single = decoder.decode(genotype).crops().stream()
+          .filter(crop -> crop.crop.size == 1)
+          .findFirst().orElseThrow();
+      genes[single.x + 9 * single.y] = (single.crop.ordinal() + 1) % 10;
+      children.add(Genotype.of(IntegerChromosome.of(Arrays.stream(genes)
+          .mapToObj(g -> IntegerGene.of(g, 0, Crop.len())).toList())));
+    }
+  }
+
+  @Benchmark
+  public Plot decode() {
+    next = (next + 1) % Corpus.SIZE;
+    return decoder.decode(corpus.get(next).genotype());
+  }
+
+  @Benchmark
+  public Kernel kernel() {
+    next = (next + 1) % Corpus.SIZE;
+    return kernel.evaluate(children.get(next));
+  }
+
+  @Benchmark
+  public Kernel incremental() {
+    next = (next + 1) % Corpus.SIZE;
+    return kernel.evaluate(parents.get(next), children.get(next), Garden.DEFAULT.tiles());
+  }
+}
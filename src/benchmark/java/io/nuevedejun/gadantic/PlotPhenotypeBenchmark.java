@@ -0,0 +1,60 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PlotPhenotypeBenchmark {
+
+  /**
+   * Size of the fitness cache; 0 measures the bare kernel.
+   */
+  @Param({"0", "16384"})
+  public int cacheSize;
+
+  private PlotPhenotype phenotype;
+  private List<Phenotype<IntegerGene, Double>> corpus;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    final var cache = new SmallRyeConfigBuilder()
+        .withMapping(FitnessCache.Settings.class)
+        .withDefaultValue("fitness-cache.size", String.valueOf(cacheSize))
+        .build().getConfigMapping(FitnessCache.Settings.class);
+    final var properties = new SmallRyeConfigBuilder()
+        .withMapping(GeneticProperties.class)
+        .withDefaultValue("ga.evaluation.incremental-limit", "0")
+        .build().getConfigMapping(GeneticProperties.class);
+    phenotype = new PlotPhenotype.Impl(Corpus.defaults(FitnessCoefficients.class),
+        PlotEncoding.of(PlotEncoding.Kind.DIRECT), new FitnessCache(cache), new Lineage(properties));
+    corpus = Corpus.valid();
+  }
+
+  @Benchmark
+  public double fitness() {
+    next = (next + 1) % Corpus.SIZE;
+    return phenotype.fitness(corpus.get(next).genotype());
+  }
+}
@@ -1,7 +1,6 @@
 package io.nuevedejun.gadantic;
 
 import io.jenetics.IntegerGene;
-import io.jenetics.Mutator;
 import io.jenetics.RouletteWheelSelector;
 import io.jenetics.ShuffleMutator;
 import io.jenetics.TournamentSelector;
@@ -12,6 +11,9 @@
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
 
+import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
+import static io.nuevedejun.gadantic.Iterables.arr;
+
 /**
  * Application configuration that produces CDI beans for the genetic algorithm engine.
  */
@@ -29,15 +31,41 @@ TournamentSelector<IntegerGene, Double> selector() {
     return new TournamentSelector<>(properties.tournamentSize());
   }
 
+  @Produces
+  @ApplicationScoped
+  Garden garden() {
+    final Garden garden = Garden.of(properties);
+    Log.info(LOG_FQCN, "Planning a garden of {0} plantable tiles: {1}",
+        arr(garden.area(), garden), null);
+    return garden;
+  }
+
+  @Produces
+  @ApplicationScoped
+  PlotEncoding encoding(final Garden garden) {
+    Log.info(LOG_FQCN, "Encoding plots with {0} encoding", arr(properties.encoding()), null);
+    return PlotEncoding.of(properties.encoding(), garden);
+  }
+
   @Produces
   Engine<IntegerGene, Double> engine(
       final PlotPhenotype plotPhenotype,
+      final PlotEncoding encoding,
+      final FitnessEvaluator evaluator,
       final Constraint<IntegerGene, Double> constraint,
-      final TournamentSelector<IntegerGene, Double> selector) {
+      final TournamentSelector<IntegerGene, Double> selector,
+      final Lineage lineage) {
     Log.info("Creating evolution engine");
-    return Engine
-        .builder(plotPhenotype::fitness, constraint.constrain(plotPhenotype.encoding()))
-        .constraint(constraint)
+    final Engine.Builder<IntegerGene, Double> builder;
+    if (encoding.repairs()) {
+      builder = new Engine.Builder<>(evaluator, constraint.constrain(plotPhenotype.encoding()))
+          .constraint(constraint);
+    } else {
+      // plots of a validity-preserving encoding never need repairing
+      builder = new Engine.Builder<>(evaluator, plotPhenotype.encoding());
+    }
+    return builder
+        .executor(evaluator.executor())
         .populationSize(properties.populationSize())
         .offspringFraction(properties.offspringFraction())
         .survivorsSelector(selector)
@@ -47,8 +75,8 @@ Engine<IntegerGene, Double> engine(
             new UniformCrossover<>(
                 properties.crossoverProbability(),
                 properties.swapProbability()),
-            new Mutator<>(properties.mutationProbability()),
-            new ReplacementMutator(properties.replacementProbability()))
+            new LineageMutator(properties.mutationProbability(), lineage),
+            new ReplacementMutator<>(properties.replacementProbability()))
         .build();
   }
 }
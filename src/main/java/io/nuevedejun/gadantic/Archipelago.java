@@ -0,0 +1,262 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.IntegerGene;
+import io.jenetics.Optimize;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionDurations;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.engine.EvolutionStream;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.MSeq;
+import io.nuevedejun.gadantic.GeneticProperties.Islands;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.UnaryOperator;
+
+import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
+import static io.nuevedejun.gadantic.Iterables.arr;
+
+/**
+ * Island model on top of the evolution engine.
+ * <p>
+ * Each island holds its own population and evolves it on its own thread for
+ * {@link Islands#migrationInterval()} generations. Afterward, the best individuals of every island
+ * replace the worst individuals of its neighbours, as given by {@link Islands#topology()}. The
+ * engine is stateless, so all islands share the same instance and thus the same settings.
+ * <p>
+ * The stream yields one result per generation, whose population is the union of the islands'
+ * populations at that generation. With a single island, this is the plain engine stream.
+ * <p>
+ * Islands check whether the evolution was stopped after every generation, so a stopped epoch ends
+ * early instead of keeping the stream waiting for the rest of its generations.
+ * <p>
+ * Every evolved generation goes through a refinement before it is yielded or evolved further,
+ * which is how the {@link LocalSearch} improves the elite during the evolution.
+ */
+@ApplicationScoped
+public class Archipelago implements AutoCloseable {
+
+  private final Engine<IntegerGene, Double> engine;
+  private final Islands islands;
+  private final int interval;
+  private final UnaryOperator<EvolutionResult<IntegerGene, Double>> refinement;
+  private final ExecutorService executor;
+
+  @Inject
+  Archipelago(final Engine<IntegerGene, Double> engine, final GeneticProperties properties,
+      final LocalSearch localSearch) {
+    this(engine, properties, localSearch::during);
+  }
+
+  Archipelago(final Engine<IntegerGene, Double> engine, final GeneticProperties properties) {
+    this(engine, properties, UnaryOperator.identity());
+  }
+
+  private Archipelago(final Engine<IntegerGene, Double> engine,
+      final GeneticProperties properties,
+      final UnaryOperator<EvolutionResult<IntegerGene, Double>> refinement) {
+    this.engine = engine;
+    this.refinement = refinement;
+    this.islands = properties.islands();
+    this.interval = Math.max(islands.migrationInterval(), 1);
+    this.executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("island-", 0).factory());
+    if (islands.count() > 1) {
+      Log.info(LOG_FQCN, "Evolving {0} islands with {1} topology, migrating {2} individuals "
+              + "every {3} generations",
+          arr(islands.count(), islands.topology(), islands.migrants(), interval), null);
+    }
+  }
+
+  /**
+   * Creates the evolution stream of the archipelago.
+   *
+   * @param start the initial population, dealt among the islands
+   * @return the stream of merged results, one per generation
+   */
+  public EvolutionStream<IntegerGene, Double> stream(
+      final EvolutionStart<IntegerGene, Double> start) {
+    return stream(start, () -> false);
+  }
+
+  /**
+   * Creates the evolution stream of the archipelago, whose epochs end early once stopped.
+   *
+   * @param start the initial population, dealt among the islands
+   * @param stopped checked after every generation of every island, true to stop evolving
+   * @return the stream of merged results, one per generation
+   */
+  public EvolutionStream<IntegerGene, Double> stream(
+      final EvolutionStart<IntegerGene, Double> start, final BooleanSupplier stopped) {
+    if (islands.count() <= 1) {
+      // the stream evolves a single generation for each result, which is checked by its consumer
+      return EvolutionStream.ofEvolution(() -> start,
+          current -> refinement.apply(engine.evolve(current)));
+    }
+    final var epochs = new Epochs(start, stopped);
+    return EvolutionStream.ofEvolution(() -> start, ignored -> epochs.next());
+  }
+
+  /**
+   * Evolves the islands epoch by epoch and hands out the merged results one generation at a time.
+   * The islands keep their own populations, so the start handed over by the stream is ignored.
+   */
+  private final class Epochs {
+    private final List<EvolutionStart<IntegerGene, Double>> starts = new ArrayList<>();
+    private final Queue<EvolutionResult<IntegerGene, Double>> pending = new ArrayDeque<>();
+    private final BooleanSupplier stopped;
+
+    private Epochs(final EvolutionStart<IntegerGene, Double> start,
+        final BooleanSupplier stopped) {
+      this.stopped = stopped;
+      final List<List<Phenotype<IntegerGene, Double>>> populations = new ArrayList<>();
+      for (int i = 0; i < islands.count(); i++) {
+        populations.add(new ArrayList<>());
+      }
+      // deal the saved individuals so that every island starts with a share of them
+      final var population = start.population();
+      for (int i = 0; i < population.size(); i++) {
+        populations.get(i % islands.count()).add(population.get(i));
+      }
+      for (final var individuals : populations) {
+        starts.add(EvolutionStart.of(ISeq.of(individuals), start.generation()));
+      }
+    }
+
+    private EvolutionResult<IntegerGene, Double> next() {
+      if (pending.isEmpty()) {
+        evolve();
+      }
+      return pending.remove();
+    }
+
+    private void evolve() {
+      final List<CompletableFuture<List<EvolutionResult<IntegerGene, Double>>>> futures =
+          starts.stream()
+              .map(start -> CompletableFuture.supplyAsync(() -> epoch(start), executor))
+              .toList();
+      final List<List<EvolutionResult<IntegerGene, Double>>> epochs = futures.stream()
+          .map(CompletableFuture::join)
+          .toList();
+
+      // a stopped epoch may end at a different generation on each island
+      final int length = epochs.stream().mapToInt(List::size).min().orElseThrow();
+      for (int generation = 0; generation < length; generation++) {
+        final int index = generation;
+        pending.add(merge(epochs.stream().map(results -> results.get(index)).toList()));
+      }
+
+      final List<ISeq<Phenotype<IntegerGene, Double>>> populations = epochs.stream()
+          .map(results -> results.get(length - 1).population())
+          .toList();
+      final var migrated = migrate(populations);
+      for (int i = 0; i < starts.size(); i++) {
+        starts.set(i, EvolutionStart.of(migrated.get(i),
+            epochs.get(i).get(length - 1).next().generation()));
+      }
+    }
+
+    private List<EvolutionResult<IntegerGene, Double>> epoch(
+        final EvolutionStart<IntegerGene, Double> start) {
+      final List<EvolutionResult<IntegerGene, Double>> results = new ArrayList<>();
+      var current = start;
+      // at least one generation is evolved, so that the stream always has a result to yield
+      for (int generation = 0; generation < interval
+          && (generation == 0 || !stopped.getAsBoolean()); generation++) {
+        final var result = refinement.apply(engine.evolve(current));
+        results.add(result);
+        current = result.next();
+      }
+      return results;
+    }
+  }
+
+  private static EvolutionResult<IntegerGene, Double> merge(
+      final List<EvolutionResult<IntegerGene, Double>> results) {
+    final MSeq<Phenotype<IntegerGene, Double>> population = MSeq.ofLength(
+        results.stream().mapToInt(r -> r.population().size()).sum());
+    EvolutionDurations durations = EvolutionDurations.ZERO;
+    int kills = 0;
+    int invalids = 0;
+    int alters = 0;
+    int offset = 0;
+    for (final var result : results) {
+      for (final var individual : result.population()) {
+        population.set(offset++, individual);
+      }
+      durations = durations.plus(result.durations());
+      kills += result.killCount();
+      invalids += result.invalidCount();
+      alters += result.alterCount();
+    }
+    return EvolutionResult.of(Optimize.MAXIMUM, population.toISeq(),
+        results.getFirst().generation(), durations, kills, invalids, alters);
+  }
+
+  /**
+   * Replaces the worst individuals of each island with the best individuals of the islands that
+   * send migrants to it.
+   *
+   * @param populations the populations of the islands
+   * @return the populations after the migration
+   */
+  List<ISeq<Phenotype<IntegerGene, Double>>> migrate(
+      final List<ISeq<Phenotype<IntegerGene, Double>>> populations) {
+    final Comparator<Phenotype<IntegerGene, Double>> best =
+        Comparator.comparing(Phenotype::fitness, Optimize.MAXIMUM.descending());
+    final List<List<Phenotype<IntegerGene, Double>>> sorted = populations.stream()
+        .map(population -> population.stream().sorted(best).toList())
+        .toList();
+
+    final List<ISeq<Phenotype<IntegerGene, Double>>> migrated = new ArrayList<>();
+    for (int target = 0; target < sorted.size(); target++) {
+      final List<Phenotype<IntegerGene, Double>> incoming = new ArrayList<>();
+      for (final int source : sources(target, sorted.size())) {
+        final var emigrants = sorted.get(source);
+        incoming.addAll(emigrants.subList(0, Math.min(islands.migrants(), emigrants.size())));
+      }
+      final var residents = sorted.get(target);
+      final int kept = Math.max(residents.size() - incoming.size(), 0);
+      final List<Phenotype<IntegerGene, Double>> population = new ArrayList<>(
+          residents.subList(0, kept));
+      population.addAll(incoming.subList(0, residents.size() - kept));
+      migrated.add(ISeq.of(population));
+    }
+    return migrated;
+  }
+
+  private int[] sources(final int target, final int count) {
+    return switch (islands.topology()) {
+      case RING -> new int[]{(target + count - 1) % count};
+      case FULLY_CONNECTED -> {
+        final int[] sources = new int[count - 1];
+        for (int i = 0, source = 0; source < count; source++) {
+          if (source != target) {
+            sources[i++] = source;
+          }
+        }
+        yield sources;
+      }
+    };
+  }
+
+  @PreDestroy
+  @Override
+  public void close() {
+    executor.close();
+  }
+}
@@ -0,0 +1,149 @@
+package io.nuevedejun.gadantic;
+
+/**
+ * Set of tiles of a {@link Garden}, packed in two {@code long} words with one bit per tile.
+ * <p>
+ * Tile {@code i} maps to bit {@code i}. Bits 0 to 63 live in {@link #lo()} and bits 64 to 127 in
+ * {@link #hi()}, so that neighbour lookups, overlap checks and symmetry scores reduce to shifts
+ * and popcounts on the raw words. The geometry of the tiles depends on the garden, which
+ * implements the shifts and mirrors.
+ *
+ * @param lo tiles 0 to 63
+ * @param hi tiles 64 to 127
+ */
+public record Bitboard(long lo, long hi) {
+  /**
+   * The set without tiles.
+   */
+  public static final Bitboard EMPTY = new Bitboard(0, 0);
+
+  /**
+   * Returns the set containing only the given tile.
+   *
+   * @param tile the tile index
+   * @return the singleton set
+   */
+  public static Bitboard tile(final int tile) {
+    return tile < Long.SIZE
+        ? new Bitboard(1L << tile, 0)
+        : new Bitboard(0, 1L << (tile - Long.SIZE));
+  }
+
+  /**
+   * Returns the tiles in both sets.
+   *
+   * @param other the other set
+   * @return the intersection
+   */
+  public Bitboard and(final Bitboard other) {
+    return new Bitboard(lo & other.lo, hi & other.hi);
+  }
+
+  /**
+   * Returns the tiles in either set.
+   *
+   * @param other the other set
+   * @return the union
+   */
+  public Bitboard or(final Bitboard other) {
+    return new Bitboard(lo | other.lo, hi | other.hi);
+  }
+
+  /**
+   * Returns the tiles in exactly one of the sets.
+   *
+   * @param other the other set
+   * @return the symmetric difference
+   */
+  public Bitboard xor(final Bitboard other) {
+    return new Bitboard(lo ^ other.lo, hi ^ other.hi);
+  }
+
+  /**
+   * Returns the tiles in this set but not in the other.
+   *
+   * @param other the set to remove
+   * @return the difference
+   */
+  public Bitboard andNot(final Bitboard other) {
+    return new Bitboard(lo & ~other.lo, hi & ~other.hi);
+  }
+
+  /**
+   * Checks if the set has no tiles.
+   *
+   * @return true if empty
+   */
+  public boolean isEmpty() {
+    return (lo | hi) == 0;
+  }
+
+  /**
+   * Checks if all tiles of the other set are in this set.
+   *
+   * @param other the set to check
+   * @return true if the other set is a subset of this one
+   */
+  public boolean containsAll(final Bitboard other) {
+    return ((other.lo & ~lo) | (other.hi & ~hi)) == 0;
+  }
+
+  /**
+   * Returns the number of tiles in the set.
+   *
+   * @return the population count
+   */
+  public int count() {
+    return Long.bitCount(lo) + Long.bitCount(hi);
+  }
+
+  /**
+   * Checks if a tile is in the set.
+   *
+   * @param tile the tile index
+   * @return true if the set has the tile
+   */
+  public boolean has(final int tile) {
+    return ((tile < Long.SIZE ? lo >>> tile : hi >>> (tile - Long.SIZE)) & 1) != 0;
+  }
+
+  /**
+   * Low word of the 128-bit value {@code (hi, lo)} shifted right by {@code n} bits.
+   */
+  static long shiftRightLo(final long lo, final long hi, final int n) {
+    if (n == 0) {
+      return lo;
+    } else if (n < Long.SIZE) {
+      return (lo >>> n) | (hi << (Long.SIZE - n));
+    } else {
+      return hi >>> (n - Long.SIZE);
+    }
+  }
+
+  /**
+   * High word of the 128-bit value {@code (hi, lo)} shifted left by {@code n} bits.
+   */
+  static long shiftLeftHi(final long lo, final long hi, final int n) {
+    if (n == 0) {
+      return hi;
+    } else if (n < Long.SIZE) {
+      return (hi << n) | (lo >>> (Long.SIZE - n));
+    } else {
+      return lo << (n - Long.SIZE);
+    }
+  }
+
+  /**
+   * High word of the 128-bit value {@code (hi, lo)} shifted right by {@code n} bits.
+   */
+  static long shiftRightHi(final long hi, final int n) {
+    return n < Long.SIZE ? hi >>> n : 0;
+  }
+
+  /**
+   * Low word of the 128-bit value {@code (hi, lo)} shifted left by {@code n} bits.
+   */
+  static long shiftLeftLo(final long lo, final int n) {
+    return n < Long.SIZE ? lo << n : 0;
+  }
+}
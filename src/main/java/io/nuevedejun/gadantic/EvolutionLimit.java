@@ -0,0 +1,218 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.IntegerGene;
+import io.jenetics.engine.EvolutionResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.InstantSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Rules deciding when an evolution stops, checked after every generation.
+ * <p>
+ * Limits are combined with {@link #or(EvolutionLimit)}, and the first rule that is reached is
+ * reported by {@link #reached()}. Rules keep track of the generations they have seen, so each
+ * evolution checks a limit of its own.
+ */
+public final class EvolutionLimit {
+
+  /**
+   * Reason why an evolution stopped.
+   */
+  public enum Rule {
+    /**
+     * The maximum number of generations was evolved.
+     */
+    GENERATIONS,
+    /**
+     * The best fitness did not improve for a number of generations.
+     */
+    STEADY_FITNESS,
+    /**
+     * The best fitness reached the target.
+     */
+    TARGET_FITNESS,
+    /**
+     * The time limit expired.
+     */
+    TIME_LIMIT,
+    /**
+     * The best fitness improved too slowly over a number of generations.
+     */
+    CONVERGENCE
+  }
+
+  private record Check(Rule rule, Predicate<EvolutionResult<IntegerGene, Double>> reached) {
+  }
+
+  private final List<Check> checks;
+  private volatile Rule reached;
+
+  private EvolutionLimit(final List<Check> checks) {
+    this.checks = checks;
+  }
+
+  private static EvolutionLimit of(final Rule rule,
+      final Predicate<EvolutionResult<IntegerGene, Double>> reached) {
+    return new EvolutionLimit(List.of(new Check(rule, reached)));
+  }
+
+  /**
+   * Returns the limit configured for an evolution, starting now.
+   *
+   * @param properties the genetic algorithm settings
+   * @return the limit
+   */
+  static EvolutionLimit of(final GeneticProperties properties) {
+    final GeneticProperties.Termination termination = properties.termination();
+    EvolutionLimit limit = none();
+    if (properties.generations() >= 0) {
+      limit = limit.or(generations(properties.generations()));
+    }
+    if (termination.steadyGenerations() > 0) {
+      limit = limit.or(steadyFitness(termination.steadyGenerations()));
+    }
+    if (termination.targetFitness().isPresent()) {
+      limit = limit.or(targetFitness(termination.targetFitness().getAsDouble()));
+    }
+    if (termination.timeLimitMillis() > 0) {
+      limit = limit.or(timeLimit(Duration.ofMillis(termination.timeLimitMillis()),
+          InstantSource.system()));
+    }
+    if (termination.convergenceGenerations() > 0) {
+      limit = limit.or(convergence(termination.convergenceGenerations(),
+          termination.convergenceRate()));
+    }
+    return limit;
+  }
+
+  /**
+   * Returns a limit that is never reached.
+   *
+   * @return the limit
+   */
+  static EvolutionLimit none() {
+    return new EvolutionLimit(List.of());
+  }
+
+  /**
+   * Returns a limit reached after a number of generations.
+   *
+   * @param count the number of generations
+   * @return the limit
+   */
+  static EvolutionLimit generations(final long count) {
+    final long[] evolved = {0};
+    return of(Rule.GENERATIONS, result -> ++evolved[0] >= count);
+  }
+
+  /**
+   * Returns a limit reached when the best fitness found did not improve for a number of
+   * generations.
+   *
+   * @param generations the number of generations without improvement
+   * @return the limit
+   */
+  static EvolutionLimit steadyFitness(final int generations) {
+    final double[] best = {Double.NEGATIVE_INFINITY};
+    final int[] steady = {0};
+    return of(Rule.STEADY_FITNESS, result -> {
+      if (result.bestFitness() > best[0]) {
+        best[0] = result.bestFitness();
+        steady[0] = 0;
+      } else {
+        steady[0]++;
+      }
+      return steady[0] >= generations;
+    });
+  }
+
+  /**
+   * Returns a limit reached when the best fitness of a generation reaches a target.
+   *
+   * @param target the target fitness
+   * @return the limit
+   */
+  static EvolutionLimit targetFitness(final double target) {
+    return of(Rule.TARGET_FITNESS, result -> result.bestFitness() >= target);
+  }
+
+  /**
+   * Returns a limit reached when some time has elapsed since its creation.
+   *
+   * @param duration the time limit
+   * @param clock the source of the current instant
+   * @return the limit
+   */
+  static EvolutionLimit timeLimit(final Duration duration, final InstantSource clock) {
+    final Instant deadline = clock.instant().plus(duration);
+    return of(Rule.TIME_LIMIT, result -> !clock.instant().isBefore(deadline));
+  }
+
+  /**
+   * Returns a limit reached when the best fitness improved less than a relative rate over the
+   * last generations, e.g. 0.01 for less than 1%.
+   *
+   * @param generations the number of generations compared
+   * @param rate the minimum relative improvement
+   * @return the limit
+   */
+  static EvolutionLimit convergence(final int generations, final double rate) {
+    final Deque<Double> window = new ArrayDeque<>(generations + 1);
+    return of(Rule.CONVERGENCE, result -> {
+      window.addLast(result.bestFitness());
+      if (window.size() <= generations) {
+        return false;
+      }
+      final double first = window.removeFirst();
+      return window.getLast() - first <= rate * Math.abs(first);
+    });
+  }
+
+  /**
+   * Returns a limit reached as soon as either this or the other one is.
+   *
+   * @param other the other limit
+   * @return the combined limit
+   */
+  EvolutionLimit or(final EvolutionLimit other) {
+    final List<Check> combined = new ArrayList<>(checks);
+    combined.addAll(other.checks);
+    return new EvolutionLimit(List.copyOf(combined));
+  }
+
+  /**
+   * Checks the rules against an evolved generation. All of them see the generation, even after
+   * one is reached.
+   *
+   * @param result the evolved generation
+   * @return true if any rule is reached
+   */
+  boolean test(final EvolutionResult<IntegerGene, Double> result) {
+    Rule first = null;
+    for (final Check check : checks) {
+      if (check.reached().test(result) && first == null) {
+        first = check.rule();
+      }
+    }
+    if (first != null && reached == null) {
+      reached = first;
+    }
+    return reached != null;
+  }
+
+  /**
+   * Returns the first rule that was reached.
+   *
+   * @return the rule, if any was reached
+   */
+  Optional<Rule> reached() {
+    return Optional.ofNullable(reached);
+  }
+}
@@ -0,0 +1,153 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionDurations;
+import io.jenetics.engine.EvolutionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.function.Function;
+
+/**
+ * Metrics of every evolved generation, exposed by the application at {@code /q/metrics} in the
+ * Prometheus format.
+ * <p>
+ * All runs, the main evolution and every job, add to the same meters, so rates and distributions
+ * describe the whole process. The meters are:
+ * <ul>
+ *   <li>{@code gadantic.generations} and {@code gadantic.evaluations}: counters of generations
+ *   and fitness evaluations, whose rates are the throughput of the engine.</li>
+ *   <li>{@code gadantic.phase}: timer of each step of a generation, tagged by {@code phase}.
+ *   The constraint repairs run in {@code offspring-filter} and {@code survivor-filter}.</li>
+ *   <li>{@code gadantic.individuals}: counters of altered, killed and invalid individuals, tagged
+ *   by {@code outcome}.</li>
+ *   <li>{@code gadantic.constraint.tested} and {@code gadantic.constraint.repaired}: counters of
+ *   the plots checked and repaired by {@link PlotConstraint}.</li>
+ *   <li>{@code gadantic.diversity} and {@code gadantic.best}: distributions of the fraction of
+ *   distinct genotypes and of the best fitness in each generation.</li>
+ *   <li>{@code gadantic.save}: timer of the writes of {@link EvolutionPersistence}.</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class EvolutionMetrics {
+  private final Counter generations;
+  private final Counter evaluations;
+  private final Counter fallbacks;
+  private final Counter altered;
+  private final Counter killed;
+  private final Counter invalid;
+  private final Timer offspringSelection;
+  private final Timer survivorsSelection;
+  private final Timer altering;
+  private final Timer offspringFilter;
+  private final Timer survivorFilter;
+  private final Timer evaluation;
+  private final Timer evolve;
+  private final DistributionSummary diversity;
+  private final DistributionSummary best;
+  private final Timer save;
+
+  EvolutionMetrics(final MeterRegistry registry, final PlotConstraint constraint) {
+    this.generations = Counter.builder("gadantic.generations")
+        .description("Generations evolved")
+        .register(registry);
+    this.evaluations = Counter.builder("gadantic.evaluations")
+        .description("Individuals evaluated by the fitness function")
+        .register(registry);
+    this.fallbacks = Counter.builder("gadantic.evaluations.fallback")
+        .description("Evaluations that failed or timed out and got the fallback fitness")
+        .register(registry);
+    final Function<String, Counter> individuals = outcome -> Counter
+        .builder("gadantic.individuals")
+        .description("Individuals altered, killed for their age or found invalid")
+        .tag("outcome", outcome)
+        .register(registry);
+    this.altered = individuals.apply("altered");
+    this.killed = individuals.apply("killed");
+    this.invalid = individuals.apply("invalid");
+    final Function<String, Timer> phase = name -> Timer.builder("gadantic.phase")
+        .description("Time spent in each step of a generation, added over all islands")
+        .tag("phase", name)
+        .register(registry);
+    this.offspringSelection = phase.apply("offspring-selection");
+    this.survivorsSelection = phase.apply("survivors-selection");
+    this.altering = phase.apply("altering");
+    this.offspringFilter = phase.apply("offspring-filter");
+    this.survivorFilter = phase.apply("survivor-filter");
+    this.evaluation = phase.apply("evaluation");
+    this.evolve = phase.apply("evolve");
+    this.diversity = DistributionSummary.builder("gadantic.diversity")
+        .description("Fraction of distinct genotypes in the population")
+        .register(registry);
+    this.best = DistributionSummary.builder("gadantic.best")
+        .description("Best fitness of the population")
+        .register(registry);
+    this.save = Timer.builder("gadantic.save")
+        .description("Time spent writing the evolution state")
+        .register(registry);
+    FunctionCounter.builder("gadantic.constraint.tested", constraint, PlotConstraint::tested)
+        .description("Plots checked by the constraint")
+        .register(registry);
+    FunctionCounter.builder("gadantic.constraint.repaired", constraint, PlotConstraint::repaired)
+        .description("Invalid plots repaired by the constraint")
+        .register(registry);
+  }
+
+  /**
+   * Records the statistics of an evolved generation.
+   *
+   * @param result the result of the generation
+   */
+  public void record(final EvolutionResult<IntegerGene, Double> result) {
+    final var population = result.population();
+    generations.increment();
+    altered.increment(result.alterCount());
+    killed.increment(result.killCount());
+    invalid.increment(result.invalidCount());
+
+    final EvolutionDurations durations = result.durations();
+    offspringSelection.record(durations.offspringSelectionDuration());
+    survivorsSelection.record(durations.survivorsSelectionDuration());
+    altering.record(durations.offspringAlterDuration());
+    offspringFilter.record(durations.offspringFilterDuration());
+    survivorFilter.record(durations.survivorFilterDuration());
+    evaluation.record(durations.evaluationDuration());
+    evolve.record(durations.evolveDuration());
+
+    final long distinct = population.stream().map(Phenotype::genotype).distinct().count();
+    diversity.record((double) distinct / Math.max(population.size(), 1));
+    best.record(result.bestFitness());
+  }
+
+  /**
+   * Records fitness evaluations.
+   *
+   * @param count the number of individuals evaluated
+   */
+  public void evaluated(final int count) {
+    evaluations.increment(count);
+  }
+
+  /**
+   * Records evaluations that failed or timed out.
+   *
+   * @param count the number of individuals that got the fallback fitness
+   */
+  public void fellBack(final int count) {
+    fallbacks.increment(count);
+  }
+
+  /**
+   * Returns the timer of the writes of the evolution state.
+   *
+   * @return the save timer
+   */
+  public Timer save() {
+    return save;
+  }
+}
@@ -1,8 +1,5 @@
 package io.nuevedejun.gadantic;
 
-import io.jenetics.Chromosome;
-import io.jenetics.Genotype;
-import io.jenetics.IntegerChromosome;
 import io.jenetics.IntegerGene;
 import io.jenetics.Optimize;
 import io.jenetics.Phenotype;
@@ -10,24 +7,24 @@
 import io.jenetics.engine.EvolutionResult;
 import io.jenetics.engine.EvolutionStart;
 import io.jenetics.util.ISeq;
-import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+import io.micrometer.core.instrument.Timer;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
 import io.quarkus.logging.Log;
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
-import org.apache.fury.Fury;
-import org.apache.fury.config.Language;
-import org.apache.fury.io.FuryInputStream;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.List;
+import java.nio.file.StandardCopyOption;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
 import static io.nuevedejun.gadantic.Iterables.arr;
@@ -51,40 +48,56 @@ public interface EvolutionPersistence {
    */
   void write(EvolutionResult<IntegerGene, Double> individuals);
 
+  /**
+   * Saves the current evolution state in the background if a checkpoint is due. Does not block
+   * the calling thread.
+   *
+   * @param result the latest evolution result
+   */
+  void checkpoint(EvolutionResult<IntegerGene, Double> result);
+
   @ApplicationScoped
   class File implements EvolutionPersistence, AutoCloseable {
-    private static final int OUTPUT_BUFFER_SIZE = 65536;
-
-    record Population(List<Individual> individuals, long generation) {
-      public static Population empty() {
-        return new Population(List.of(), 1);
-      }
-    }
-
-
-    record Individual(List<Integer> genes, long generation) {
-    }
-
-
     private final Path file;
     private final Selector<IntegerGene, Double> selector;
     private final int count;
-    private final Fury fury;
+    private final long checkpointGenerations;
+    private final long checkpointNanos;
+    private final int backups;
+    private final long coefficients;
+    private final int tiles;
+    private final EvolutionMetrics metrics;
     private final ExecutorService executor;
 
+    // latest checkpoint waiting for the writer; a newer one replaces it instead of queueing
+    private final AtomicReference<EvolutionStart<IntegerGene, Double>> pending =
+        new AtomicReference<>();
+    private long lastGeneration;
+    private long lastNanos = System.nanoTime();
+
     File(
         @ConfigProperty(name = "save-file", defaultValue = "gadantic.sav") final Path file,
         final Selector<IntegerGene, Double> selector,
-        @ConfigProperty(name = "individual-saved-count", defaultValue = "20") final int count) {
+        @ConfigProperty(name = "individual-saved-count", defaultValue = "20") final int count,
+        @ConfigProperty(name = "checkpoint-generations", defaultValue = "100")
+        final long checkpointGenerations,
+        @ConfigProperty(name = "checkpoint-millis", defaultValue = "60000")
+        final long checkpointMillis,
+        @ConfigProperty(name = "checkpoint-backups", defaultValue = "2") final int backups,
+        final FitnessCoefficients coefficients, final PlotEncoding encoding,
+        final EvolutionMetrics metrics) {
       this.file = file;
       this.selector = selector;
       this.count = count;
-
-      this.fury = Fury.builder().withLanguage(Language.JAVA)
-          .requireClassRegistration(true)
-          .build();
-      fury.register(Population.class);
-      fury.register(Individual.class);
+      this.checkpointGenerations = checkpointGenerations;
+      this.checkpointNanos = TimeUnit.MILLISECONDS.toNanos(checkpointMillis);
+      this.backups = backups;
+      // fitness also depends on how genotypes are decoded; the direct encoding and the default
+      // garden keep old files valid
+      this.coefficients = FitnessCoefficients.fingerprint(coefficients)
+          ^ encoding.kind().ordinal() ^ encoding.garden().fingerprint();
+      this.tiles = encoding.garden().tiles();
+      this.metrics = metrics;
 
       // guarantee sequential access to the file
       this.executor = Executors.newSingleThreadExecutor(
@@ -93,62 +106,110 @@ record Individual(List<Integer> genes, long generation) {
 
     @Override
     public EvolutionStart<IntegerGene, Double> read() {
-      final Population population = CompletableFuture.supplyAsync(() -> {
-        try (final var in = new FuryInputStream(Files.newInputStream(file))) {
-          return fury.deserializeJavaObject(in, Population.class);
-        } catch (final NoSuchFileException e) {
-          Log.info(LOG_FQCN, "File {0} was not found. Evolution will start from scratch",
-              arr(file), null);
-          return Population.empty();
-        } catch (final IOException | IndexOutOfBoundsException e) {
-          Log.warn(LOG_FQCN, "An exception prevented reading file {0}. "
-              + "Evolution will start from scratch.", arr(file), e);
-          return Population.empty();
+      final EvolutionStart<IntegerGene, Double> start = CompletableFuture.supplyAsync(() -> {
+        // fall back to the backups if the latest file cannot be read
+        for (int i = 0; i <= backups; i++) {
+          final EvolutionStart<IntegerGene, Double> loaded = load(backup(i));
+          if (loaded != null) {
+            return loaded;
+          }
         }
+        Log.info("No saved state could be read. Evolution will start from scratch");
+        return SaveFormat.empty();
       }, executor).join();
+      lastGeneration = start.generation();
+      return start;
+    }
 
-      final Population actual;
-      if (population == null) {
-        Log.warn("Deserialized format is null. Serialization may have been corrupted,"
-            + " or format changed since last execution. Evolution will start from scratch");
-        actual = Population.empty();
-      } else {
-        actual = population;
+    private EvolutionStart<IntegerGene, Double> load(final Path source) {
+      try {
+        final EvolutionStart<IntegerGene, Double> start = SaveFormat.read(source, coefficients);
+        if (!start.population().isEmpty()
+            && start.population().get(0).genotype().chromosome().length() != tiles) {
+          Log.warn(LOG_FQCN, "File {0} was saved for a garden of a different size",
+              arr(source), null);
+          return null;
+        }
+        return start;
+      } catch (final NoSuchFileException e) {
+        Log.info(LOG_FQCN, "File {0} was not found", arr(source), null);
+        return null;
+      } catch (final IOException e) {
+        Log.warn(LOG_FQCN, "An exception prevented reading file {0}", arr(source), e);
+        return null;
       }
-      final var collect = actual.individuals.stream()
-          .map(this::toPhenotype)
-          .collect(ISeq.toISeq());
-      return EvolutionStart.of(collect, actual.generation());
     }
 
     @Override
     public void write(final EvolutionResult<IntegerGene, Double> evolutionResult) {
-      final List<Individual> individuals =
-          selector.select(evolutionResult.population(), count, Optimize.MAXIMUM).stream()
-              .map(this::toIndividual).toList();
-      final var format = new Population(individuals, evolutionResult.generation());
-
-      CompletableFuture.runAsync(() -> {
-        try (final var out = new BufferedOutputStream(Files.newOutputStream(file),
-            OUTPUT_BUFFER_SIZE)) {
-          fury.serializeJavaObject(out, format);
-        } catch (final IOException ioe) {
-          Log.warn(LOG_FQCN, "An exception prevented writing to file {0}. State was not saved.",
-              arr(file), ioe);
-        }
-      }, executor).join();
+      final var snapshot = capture(evolutionResult);
+      CompletableFuture.runAsync(() -> save(snapshot), executor).join();
+    }
+
+    @Override
+    public void checkpoint(final EvolutionResult<IntegerGene, Double> result) {
+      final long now = System.nanoTime();
+      final boolean due = (checkpointGenerations > 0
+          && result.generation() - lastGeneration >= checkpointGenerations)
+          || (checkpointNanos > 0 && now - lastNanos >= checkpointNanos);
+      if (!due) {
+        return;
+      }
+      lastGeneration = result.generation();
+      lastNanos = now;
+      // only the selection runs on the evolution thread; the writer serializes in the background
+      if (pending.getAndSet(capture(result)) == null) {
+        executor.execute(() -> {
+          final var snapshot = pending.getAndSet(null);
+          Log.debug(LOG_FQCN, "Saving checkpoint at generation {0}", arr(snapshot.generation()),
+              null);
+          save(snapshot);
+        });
+      }
+    }
+
+    private EvolutionStart<IntegerGene, Double> capture(
+        final EvolutionResult<IntegerGene, Double> evolutionResult) {
+      // phenotypes are immutable, so the writer can encode them later on its own thread
+      final ISeq<Phenotype<IntegerGene, Double>> individuals = count < 0
+          ? evolutionResult.population()
+          : selector.select(evolutionResult.population(), count, Optimize.MAXIMUM);
+      return EvolutionStart.of(individuals, evolutionResult.generation());
     }
 
-    private Individual toIndividual(final Phenotype<IntegerGene, Double> phenotype) {
-      final Chromosome<IntegerGene> chromosome = phenotype.genotype().chromosome();
-      return new Individual(chromosome.as(IntegerChromosome.class).intStream().boxed().toList(),
-          phenotype.generation());
+    /**
+     * Writes to a temporary file, shifts the backups and then renames the temporary file, so that
+     * a crash never leaves a partially written save file behind.
+     */
+    private void save(final EvolutionStart<IntegerGene, Double> snapshot) {
+      final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      final Timer.Sample sample = Timer.start();
+      try {
+        SaveFormat.write(temp, coefficients, snapshot.generation(), snapshot.population());
+        if (backups > 0 && Files.exists(file)) {
+          for (int i = backups - 1; i > 0; i--) {
+            if (Files.exists(backup(i))) {
+              Files.move(backup(i), backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+          }
+          Files.copy(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+          Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException e) {
+          Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } catch (final IOException ioe) {
+        Log.warn(LOG_FQCN, "An exception prevented writing to file {0}. State was not saved.",
+            arr(file), ioe);
+      } finally {
+        sample.stop(metrics.save());
+      }
     }
 
-    private Phenotype<IntegerGene, Double> toPhenotype(final Individual individual) {
-      final var genotype = Genotype.of(IntegerChromosome.of(individual.genes().stream()
-          .map(it -> IntegerGene.of(it, 0, Crop.len())).toList()));
-      return Phenotype.of(genotype, individual.generation());
+    private Path backup(final int index) {
+      return index == 0 ? file : file.resolveSibling(file.getFileName() + "." + index);
     }
 
     @PreDestroy
@@ -0,0 +1,600 @@
+package io.nuevedejun.gadantic;
+
+import io.nuevedejun.gadantic.PlotDecoder.Kernel;
+import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.nuevedejun.gadantic.PlotPhenotype.Perk;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exact solver for small restricted variants of the plot problem, to certify optima and to
+ * measure how far evolved plots are from them.
+ * <p>
+ * Given a plot and a window of it, the solver finds the best way to replace the single-tile crops
+ * of the window with crops of a given subset, while the rest of the plot stays as it is. It runs a
+ * depth-first branch and bound over those tiles in row-major order. The fitness of a partial plot
+ * is bounded from above term by term: crops next to an unfilled tile are assumed to get all the
+ * perks they still can, and unfilled tiles to add new crop types and to match their mirror tiles.
+ * Branches whose bound does not beat the best plot found so far are pruned, starting from the
+ * given plot. The first tiles are split among the tasks of a fork-join pool, which share the best
+ * plot.
+ * <p>
+ * A search that completes within {@link Settings#maxNodes()} certifies its plot as the optimum of
+ * the window. Otherwise the best plot found is returned with the bound of the whole window.
+ */
+public final class ExactSolver {
+
+  /**
+   * Configuration of the exact solver.
+   */
+  @ConfigMapping(prefix = "solver")
+  public interface Settings {
+
+    /**
+     * Maximum number of partial plots explored by a search before it gives up on certifying the
+     * optimum.
+     *
+     * @return the node budget
+     */
+    @WithDefault("10000000")
+    long maxNodes();
+  }
+
+  /**
+   * Rectangle of the plot to solve.
+   *
+   * @param x the x coordinate of the upper left corner
+   * @param y the y coordinate of the upper left corner
+   * @param width the width of the rectangle
+   * @param height the height of the rectangle
+   */
+  public record Window(int x, int y, int width, int height) {
+  }
+
+  /**
+   * Outcome of a search.
+   *
+   * @param plot the crop ordinals of the best plot found, in row-major order
+   * @param fitness the fitness of the best plot
+   * @param bound an upper bound of the fitness of any plot the window allows
+   * @param nodes the number of partial plots explored
+   * @param exact true if the search completed, so the plot is the optimum of the window
+   */
+  public record Solution(int[] plot, double fitness, double bound, long nodes, boolean exact) {
+  }
+
+  private static final int PERKS = Perk.values().length;
+  private static final int UNASSIGNED = -1;
+  /** Nodes explored by a task between checks of the shared budget. */
+  private static final int BATCH = 4096;
+  /** Branches per worker the first tiles are split into. */
+  private static final int BRANCHES = 8;
+
+  private static final int[] SIZE = new int[Crop.len()];
+  private static final int[] PERK = new int[Crop.len()];
+  /** Crops are equivalent for symmetry purposes if they have the same perk and size. */
+  private static final int[] EQUIVALENCE = new int[Crop.len()];
+
+  static {
+    for (int i = 0; i < Crop.len(); i++) {
+      final Crop crop = Crop.at(i);
+      SIZE[i] = crop.size;
+      PERK[i] = crop.perk.ordinal();
+      EQUIVALENCE[i] = crop.perk.ordinal() * (Crop.APPLES.size + 1) + crop.size;
+    }
+  }
+
+  private final FitnessCoefficients coefficients;
+  private final double normalize;
+  private final long maxNodes;
+  private final ForkJoinPool pool;
+  private final Garden garden;
+  private final int width;
+  private final int tiles;
+
+  ExactSolver(final FitnessCoefficients coefficients, final Settings settings,
+      final ForkJoinPool pool) {
+    this(coefficients, settings, pool, Garden.DEFAULT);
+  }
+
+  ExactSolver(final FitnessCoefficients coefficients, final Settings settings,
+      final ForkJoinPool pool, final Garden garden) {
+    this.coefficients = coefficients;
+    this.normalize = PlotPhenotype.Impl.normalize(coefficients);
+    this.maxNodes = settings.maxNodes();
+    this.pool = pool;
+    this.garden = garden;
+    this.width = garden.width();
+    this.tiles = garden.tiles();
+  }
+
+  /**
+   * Returns the single-tile crops, which are the ones a window can be filled with.
+   *
+   * @return the crop ordinals
+   */
+  public static int[] singleTileCrops() {
+    return Arrays.stream(Crop.values())
+        .filter(crop -> crop.size == 1)
+        .mapToInt(Crop::ordinal)
+        .toArray();
+  }
+
+  /**
+   * Finds the best plot that differs from the given one only in the single-tile crops of a window.
+   *
+   * @param plot the crop ordinals of a valid plot of the solver's garden, in row-major order
+   * @param window the window to solve
+   * @param crops the ordinals of the single-tile crops allowed in the window
+   * @return the best plot found
+   * @throws IllegalArgumentException if the plot, the window or the crops are invalid
+   */
+  public Solution solve(final int[] plot, final Window window, final int[] crops) {
+    final Problem problem = new Problem(plot, window, crops);
+    final int[] genes = problem.genes();
+    final double rootBound = problem.bound(genes, problem.free.length);
+    final Search search = new Search(problem, new Best(problem.bound(plot, 0), plot.clone()));
+    // split until there are enough branches to keep every worker busy
+    int split = 0;
+    for (long branches = 1; split < problem.free.length
+        && branches < (long) BRANCHES * pool.getParallelism(); split++) {
+      branches *= crops.length;
+    }
+    pool.invoke(search.new Branch(genes, 0, split));
+
+    final Best best = search.best.get();
+    final Kernel kernel = new Kernel(garden).evaluate(best.plot());
+    return new Solution(best.plot(), PlotPhenotype.Impl.score(coefficients, normalize, kernel),
+        rootBound / normalize, search.nodes.get(), !search.aborted);
+  }
+
+  private record Best(double value, int[] plot) {
+  }
+
+  /**
+   * Precomputed structure of a window of a plot. Fitness values are kept without normalizing.
+   */
+  private final class Problem {
+    private final int[] plot;
+    private final int[] owner = new int[tiles];
+    /** Tiles of the window to fill, in row-major order. */
+    private final int[] free;
+    private final int[] crops;
+    private final int cropMask;
+    private final int classMask;
+
+    private final double[] coverWeight = new double[PERKS];
+    private final double efficiencyWeight;
+    private final double uniqueWeight;
+    private final double[] symmetryWeight;
+
+    /** Origins of the crops on or next to the window, whose buffs depend on it. */
+    private final int[] affected;
+    /** Tiles next to each affected crop, once per adjacent tile of the crop. */
+    private final int[][] neighbours;
+    /** Fitness of the crops whose buffs do not depend on the window. */
+    private final double fixedValue;
+    /** Crop types outside the window. */
+    private final int fixedMask;
+    /** Symmetry matches that do not depend on the window, and the pairs that do. */
+    private final int[] fixedMatches = new int[3];
+    private final int[][] pairs = new int[3][];
+
+    Problem(final int[] plot, final Window window, final int[] crops) {
+      if (plot.length != tiles) {
+        throw new IllegalArgumentException("A plot of garden " + garden + " has " + tiles
+            + " tiles");
+      }
+      this.plot = plot.clone();
+      this.crops = crops.clone();
+      fill();
+
+      if (window.x() < 0 || window.y() < 0 || window.width() < 1 || window.height() < 1
+          || window.x() + window.width() > width
+          || window.y() + window.height() > garden.height()) {
+        throw new IllegalArgumentException("Window " + window + " is outside the plot");
+      }
+      final Bitboard region = garden.region(window.x(), window.y(), window.width(),
+          window.height());
+      int allowed = 0;
+      int classes = 0;
+      for (final int crop : crops) {
+        if (crop < 0 || crop >= Crop.len() || SIZE[crop] != 1) {
+          throw new IllegalArgumentException("Crop " + crop + " is not a single-tile crop");
+        }
+        allowed |= 1 << crop;
+        classes |= 1 << EQUIVALENCE[crop];
+      }
+      if (allowed == 0) {
+        throw new IllegalArgumentException("At least one crop is required");
+      }
+      this.cropMask = allowed;
+      this.classMask = classes;
+      final List<Integer> candidates = new ArrayList<>();
+      for (int tile = 0; tile < tiles; tile++) {
+        if (region.has(tile) && owner[tile] == tile && SIZE[plot[tile]] == 1) {
+          candidates.add(tile);
+        }
+      }
+      this.free = candidates.stream().mapToInt(Integer::intValue).toArray();
+      final boolean[] isFree = new boolean[tiles];
+      for (final int tile : free) {
+        isFree[tile] = true;
+      }
+
+      int available = -garden.border();
+      for (int tile = 0; tile < tiles; tile++) {
+        if (owner[tile] == tile) {
+          available += 4 * SIZE[plot[tile]];
+        }
+      }
+      for (int perk = 0; perk < PERKS; perk++) {
+        coverWeight[perk] = coverCoefficient(perk) / garden.area();
+      }
+      this.efficiencyWeight = coefficients.buffEfficiency() / available;
+      this.uniqueWeight = coefficients.uniqueCrops() / Crop.len();
+      this.symmetryWeight = new double[]{
+          weight(coefficients.horizontalSymmetry(), garden.horizontalPairs()),
+          weight(coefficients.verticalSymmetry(), garden.verticalPairs()),
+          weight(coefficients.rotationalSymmetry(), garden.rotationalPairs())};
+
+      // crops away from the window always get the same buffs
+      final List<Integer> origins = new ArrayList<>();
+      final List<int[]> adjacent = new ArrayList<>();
+      double value = 0;
+      int mask = 0;
+      for (int origin = 0; origin < tiles; origin++) {
+        if (owner[origin] != origin) {
+          continue;
+        }
+        final int[] next = neighbours(origin);
+        final boolean depends = isFree[origin]
+            || Arrays.stream(next).anyMatch(tile -> isFree[tile]);
+        if (depends) {
+          origins.add(origin);
+          adjacent.add(next);
+        } else {
+          value += value(plot, origin, next);
+        }
+        if (!isFree[origin]) {
+          mask |= 1 << plot[origin];
+        }
+      }
+      this.affected = origins.stream().mapToInt(Integer::intValue).toArray();
+      this.neighbours = adjacent.toArray(int[][]::new);
+      this.fixedValue = value;
+      this.fixedMask = mask;
+
+      for (int symmetry = 0; symmetry < 3; symmetry++) {
+        final List<Integer> variable = new ArrayList<>();
+        for (int tile = 0; tile < tiles; tile++) {
+          final int mirror = mirror(symmetry, tile);
+          if (mirror < 0) {
+            continue;
+          }
+          if (isFree[tile] || isFree[mirror]) {
+            variable.add(tile);
+            variable.add(mirror);
+          } else if (EQUIVALENCE[plot[owner[tile]]] == EQUIVALENCE[plot[owner[mirror]]]) {
+            fixedMatches[symmetry]++;
+          }
+        }
+        pairs[symmetry] = variable.stream().mapToInt(Integer::intValue).toArray();
+      }
+    }
+
+    /**
+     * Returns the plot with the free tiles unassigned.
+     */
+    int[] genes() {
+      final int[] genes = plot.clone();
+      for (final int tile : free) {
+        genes[tile] = UNASSIGNED;
+      }
+      return genes;
+    }
+
+    private static double weight(final double coefficient, final int pairs) {
+      return pairs == 0 ? 0 : coefficient / pairs;
+    }
+
+    private double coverCoefficient(final int perk) {
+      return switch (Perk.values()[perk]) {
+        case WATER -> coefficients.waterRetention();
+        case WEED -> coefficients.weedPrevention();
+        case QUALITY -> coefficients.qualityBoost();
+        case HARVEST -> coefficients.harvestIncrease();
+      };
+    }
+
+    /**
+     * Resolves tile ownership like the {@link Kernel}, rejecting overlapping crops and crops
+     * falling off the plot or on masked tiles.
+     */
+    private void fill() {
+      Arrays.fill(owner, -1);
+      for (int pos = 0; pos < tiles; pos++) {
+        if (owner[pos] >= 0 || !garden.plantable(pos)) {
+          continue;
+        }
+        if (plot[pos] < 0 || plot[pos] >= Crop.len()) {
+          throw new IllegalArgumentException("Invalid crop " + plot[pos] + " at tile " + pos);
+        }
+        final int size = SIZE[plot[pos]];
+        if (size > garden.maxFit(pos)) {
+          throw new IllegalArgumentException("Crop at tile " + pos + " falls off the plot");
+        }
+        for (int dy = 0; dy < size; dy++) {
+          for (int dx = 0; dx < size; dx++) {
+            final int tile = pos + dx + dy * width;
+            if (owner[tile] >= 0) {
+              throw new IllegalArgumentException("Crops overlap at tile " + tile);
+            }
+            owner[tile] = pos;
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the plantable tiles next to a crop, once for each tile of the crop they are next
+     * to.
+     */
+    private int[] neighbours(final int origin) {
+      final int size = SIZE[plot[origin]];
+      final int x = origin % width;
+      final int y = origin / width;
+      final List<Integer> next = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        if (y > 0) {
+          next.add(x + i + (y - 1) * width);
+        }
+        if (y + size < garden.height()) {
+          next.add(x + i + (y + size) * width);
+        }
+        if (x > 0) {
+          next.add(x - 1 + (y + i) * width);
+        }
+        if (x + size < width) {
+          next.add(x + size + (y + i) * width);
+        }
+      }
+      return next.stream().mapToInt(Integer::intValue).filter(garden::plantable).toArray();
+    }
+
+    /**
+     * Returns the tile compared with the given one by a symmetry, or -1 if it is not compared.
+     */
+    private int mirror(final int symmetry, final int tile) {
+      return switch (symmetry) {
+        case 0 -> garden.horizontalPartner(tile);
+        case 1 -> garden.verticalPartner(tile);
+        default -> garden.rotationalPartner(tile);
+      };
+    }
+
+    /**
+     * Returns the fitness contributed by the buffs of a crop of a complete plot.
+     */
+    private double value(final int[] genes, final int origin, final int[] next) {
+      final int crop = genes[origin];
+      final int[] counts = new int[PERKS];
+      for (final int tile : next) {
+        final int source = genes[owner[tile]];
+        if (source != crop) {
+          counts[PERK[source]]++;
+        }
+      }
+      return value(SIZE[crop], counts, 0);
+    }
+
+    /**
+     * Returns an upper bound of the fitness contributed by the buffs of a crop, given the buffs
+     * it already gets and the number of unfilled tiles next to it. Each unfilled tile adds at most
+     * one buff, so the best set of perks the crop can still complete is picked. The bound is
+     * exact for a crop without unfilled tiles next to it.
+     */
+    private double value(final int size, final int[] counts, final int unknown) {
+      double value = 0;
+      int applied = 0;
+      int missing = 0;
+      int uncovered = 0;
+      final int[] deficit = new int[PERKS];
+      for (int perk = 0; perk < PERKS; perk++) {
+        if (counts[perk] >= size) {
+          value += coverWeight[perk] * size * size;
+          applied += size;
+        } else {
+          applied += counts[perk];
+          deficit[perk] = size - counts[perk];
+          missing += deficit[perk];
+          uncovered |= 1 << perk;
+        }
+      }
+      if (unknown > 0) {
+        double gain = 0;
+        for (int subset = uncovered; subset != 0; subset = (subset - 1) & uncovered) {
+          int cost = 0;
+          double weight = 0;
+          for (int perk = 0; perk < PERKS; perk++) {
+            if ((subset & 1 << perk) != 0) {
+              cost += deficit[perk];
+              weight += coverWeight[perk] * size * size;
+            }
+          }
+          if (cost <= unknown) {
+            gain = Math.max(gain, weight);
+          }
+        }
+        value += gain;
+        applied += Math.min(unknown, missing);
+      }
+      return value + efficiencyWeight * applied;
+    }
+
+    /**
+     * Returns an upper bound of the fitness of any plot completing the given one, which is exact
+     * if all tiles are filled.
+     *
+     * @param genes the plot, with {@value #UNASSIGNED} on its unfilled tiles
+     * @param unassigned the number of unfilled tiles
+     */
+    double bound(final int[] genes, final int unassigned) {
+      double value = fixedValue;
+      final int[] counts = new int[PERKS];
+      for (int i = 0; i < affected.length; i++) {
+        final int crop = genes[affected[i]];
+        Arrays.fill(counts, 0);
+        int unknown = 0;
+        for (final int tile : neighbours[i]) {
+          final int source = genes[owner[tile]];
+          if (source == UNASSIGNED) {
+            unknown++;
+          } else if (source != crop) {
+            // an unfilled crop may still turn out to be of the same type as its neighbour
+            counts[PERK[source]]++;
+          }
+        }
+        value += value(SIZE[plot[affected[i]]], counts, unknown);
+      }
+
+      int present = fixedMask;
+      for (final int tile : free) {
+        if (genes[tile] != UNASSIGNED) {
+          present |= 1 << genes[tile];
+        }
+      }
+      value += uniqueWeight * (Integer.bitCount(present)
+          + Math.min(unassigned, Integer.bitCount(cropMask & ~present)));
+
+      for (int symmetry = 0; symmetry < 3; symmetry++) {
+        int matches = fixedMatches[symmetry];
+        final int[] pair = pairs[symmetry];
+        for (int i = 0; i < pair.length; i += 2) {
+          final int a = genes[owner[pair[i]]];
+          final int b = genes[owner[pair[i + 1]]];
+          if (a != UNASSIGNED && b != UNASSIGNED) {
+            matches += EQUIVALENCE[a] == EQUIVALENCE[b] ? 1 : 0;
+          } else if (a == UNASSIGNED && b == UNASSIGNED) {
+            matches++;
+          } else {
+            matches += (classMask >> EQUIVALENCE[a == UNASSIGNED ? b : a] & 1);
+          }
+        }
+        value += symmetryWeight[symmetry] * matches;
+      }
+      return value;
+    }
+  }
+
+  /**
+   * State shared by the tasks of a search.
+   */
+  private final class Search {
+    private final Problem problem;
+    private final AtomicReference<Best> best;
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean aborted;
+
+    Search(final Problem problem, final Best initial) {
+      this.problem = problem;
+      this.best = new AtomicReference<>(initial);
+    }
+
+    /**
+     * Explores the completions of a partial plot, forking a task per crop of the tiles before
+     * the split depth.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class Branch extends RecursiveAction {
+      private final int[] genes;
+      private final int depth;
+      private final int split;
+      private long explored;
+
+      Branch(final int[] genes, final int depth, final int split) {
+        this.genes = genes;
+        this.depth = depth;
+        this.split = split;
+      }
+
+      @Override
+      protected void compute() {
+        if (depth < split) {
+          final List<Branch> branches = new ArrayList<>();
+          final int tile = problem.free[depth];
+          for (final int crop : problem.crops) {
+            genes[tile] = crop;
+            if (promising(depth + 1)) {
+              branches.add(new Branch(genes.clone(), depth + 1, split));
+            }
+          }
+          genes[tile] = UNASSIGNED;
+          invokeAll(branches);
+        } else {
+          search(depth);
+          nodes.addAndGet(explored);
+        }
+      }
+
+      private void search(final int filled) {
+        if (++explored == BATCH) {
+          explored = 0;
+          if (nodes.addAndGet(BATCH) > maxNodes) {
+            aborted = true;
+          }
+        }
+        if (aborted) {
+          return;
+        }
+        if (filled == problem.free.length) {
+          improve(problem.bound(genes, 0));
+          return;
+        }
+        // crops with better bounds go first, so that good plots are found early and prune more
+        final int tile = problem.free[filled];
+        final int[] order = new int[problem.crops.length];
+        final double[] bounds = new double[problem.crops.length];
+        for (int i = 0; i < order.length; i++) {
+          genes[tile] = problem.crops[i];
+          final double bound = problem.bound(genes, problem.free.length - filled - 1);
+          int j = i;
+          for (; j > 0 && bounds[j - 1] < bound; j--) {
+            bounds[j] = bounds[j - 1];
+            order[j] = order[j - 1];
+          }
+          bounds[j] = bound;
+          order[j] = problem.crops[i];
+        }
+        for (int i = 0; i < order.length && bounds[i] > best.get().value(); i++) {
+          genes[tile] = order[i];
+          if (filled + 1 == problem.free.length) {
+            // the bound of a complete plot is its fitness
+            improve(bounds[i]);
+          } else {
+            search(filled + 1);
+          }
+        }
+        genes[tile] = UNASSIGNED;
+      }
+
+      private void improve(final double value) {
+        final Best candidate = new Best(value, genes.clone());
+        best.accumulateAndGet(candidate, (a, b) -> b.value() > a.value() ? b : a);
+      }
+
+      private boolean promising(final int filled) {
+        return problem.bound(genes, problem.free.length - filled) > best.get().value();
+      }
+    }
+  }
+}
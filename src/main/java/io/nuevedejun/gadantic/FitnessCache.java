@@ -0,0 +1,209 @@
+package io.nuevedejun.gadantic;
+
+import io.nuevedejun.gadantic.PlotDecoder.Layout;
+import io.quarkus.logging.Log;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
+import static io.nuevedejun.gadantic.Iterables.arr;
+
+/**
+ * Bounded memo of fitness values keyed on the canonical {@link Layout} of the decoded plot.
+ * <p>
+ * Survivors and offspring left unchanged by the alterers are re-evaluated every generation, and
+ * many genotypes decode to the same plot. Looking the layout up first avoids scoring them again.
+ * <p>
+ * The cache is shared by all evaluating threads, so it is a concurrent map without a global lock:
+ * hits only read the map, and a layout missed by several threads at once is scored by one of
+ * them while the others wait for its value. Eviction is approximate. Layouts are queued in
+ * insertion order, and once the cache is full the head of the queue is dropped; under
+ * {@link Settings.Eviction#LRU LRU}, a layout hit since it was queued gets a second chance and is
+ * queued again instead.
+ */
+@ApplicationScoped
+public class FitnessCache {
+
+  /**
+   * Configuration of the fitness cache.
+   */
+  @ConfigMapping(prefix = "fitness-cache")
+  public interface Settings {
+
+    /**
+     * Which entry is dropped when the cache is full.
+     */
+    enum Eviction {
+      /**
+       * Drop an entry not used recently, approximating the least recently used one.
+       */
+      LRU,
+      /**
+       * Drop the oldest entry.
+       */
+      FIFO
+    }
+
+    /**
+     * Maximum number of cached layouts (0 disables the cache).
+     *
+     * @return the cache size
+     */
+    @WithDefault("16384")
+    int size();
+
+    /**
+     * Eviction policy once the cache is full.
+     *
+     * @return the eviction policy
+     */
+    @WithDefault("lru")
+    Eviction eviction();
+  }
+
+  /**
+   * Snapshot of the cache counters.
+   *
+   * @param hits number of lookups answered from the cache
+   * @param misses number of lookups that required scoring the layout
+   * @param size number of cached layouts
+   */
+  public record Stats(long hits, long misses, int size) {
+
+    /**
+     * Returns the fraction of lookups answered from the cache.
+     *
+     * @return the hit ratio in [0, 1]
+     */
+    public double hitRatio() {
+      final long total = hits + misses;
+      return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the fraction of lookups that required scoring the layout.
+     *
+     * @return the miss ratio in [0, 1]
+     */
+    public double missRatio() {
+      final long total = hits + misses;
+      return total == 0 ? 0 : (double) misses / total;
+    }
+  }
+
+  /**
+   * Cached fitness of a layout, with the mark of a hit since the layout was last queued.
+   */
+  private static final class Entry {
+    private final double fitness;
+    private volatile boolean referenced;
+
+    private Entry(final double fitness) {
+      this.fitness = fitness;
+    }
+  }
+
+  private final ConcurrentHashMap<Layout, Entry> map;
+  private final Queue<Layout> order = new ConcurrentLinkedQueue<>();
+  private final int capacity;
+  private final boolean secondChance;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  FitnessCache(final Settings settings) {
+    final int size = settings.size();
+    this.map = size <= 0 ? null : new ConcurrentHashMap<>();
+    this.capacity = size;
+    this.secondChance = settings.eviction() == Settings.Eviction.LRU;
+    Log.info(LOG_FQCN, "Caching fitness of up to {0} layouts with {1} eviction",
+        arr(Math.max(size, 0), settings.eviction()), null);
+  }
+
+  /**
+   * Returns the fitness of the layout, scoring and caching it if it is not cached yet.
+   *
+   * @param layout the layout to look up
+   * @param fitness the function scoring the layout on a miss
+   * @return the fitness of the layout
+   */
+  public double get(final Layout layout, final ToDoubleFunction<Layout> fitness) {
+    if (map == null) {
+      misses.increment();
+      return fitness.applyAsDouble(layout);
+    }
+    final Entry cached = map.get(layout);
+    if (cached != null) {
+      hit(cached);
+      return cached.fitness;
+    }
+    final boolean[] scored = new boolean[1];
+    final Entry entry = map.computeIfAbsent(layout, key -> {
+      scored[0] = true;
+      order.add(key);
+      return new Entry(fitness.applyAsDouble(key));
+    });
+    if (scored[0]) {
+      misses.increment();
+      evict();
+    } else {
+      hit(entry);
+    }
+    return entry.fitness;
+  }
+
+  private void hit(final Entry entry) {
+    hits.increment();
+    if (secondChance && !entry.referenced) {
+      entry.referenced = true;
+    }
+  }
+
+  private void evict() {
+    while (map.size() > capacity) {
+      final Layout eldest = order.poll();
+      if (eldest == null) {
+        return;
+      }
+      final Entry entry = map.get(eldest);
+      if (entry != null && entry.referenced) {
+        entry.referenced = false;
+        order.add(eldest);
+      } else {
+        map.remove(eldest);
+      }
+    }
+  }
+
+  /**
+   * Checks if the cache stores any value. A disabled cache never does.
+   *
+   * @return true if lookups can be answered from the cache
+   */
+  public boolean enabled() {
+    return map != null;
+  }
+
+  /**
+   * Returns the current counters of the cache.
+   *
+   * @return the cache statistics
+   */
+  public Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), map == null ? 0 : map.size());
+  }
+
+  @PreDestroy
+  void logStats() {
+    final Stats stats = stats();
+    Log.info(LOG_FQCN, "Fitness cache served {0} hits and {1} misses (hit ratio {2})",
+        arr(stats.hits(), stats.misses(), String.format("%2.4f", stats.hitRatio())), null);
+  }
+}
@@ -0,0 +1,228 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Evaluator;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.Seq;
+import io.nuevedejun.gadantic.GeneticProperties.Evaluation;
+import io.nuevedejun.gadantic.GeneticProperties.Evaluation.Strategy;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
+import static io.nuevedejun.gadantic.Iterables.arr;
+
+/**
+ * Evaluator that hands slices of the population to the workers configured by
+ * {@link GeneticProperties#evaluation()}.
+ * <p>
+ * Each slice is evaluated as a single task, so the scheduling cost is spread over all the
+ * individuals in the slice instead of being paid once per individual.
+ * <p>
+ * The {@link Strategy#BLOCKING blocking} strategy does not slice the population. Every individual
+ * gets its own virtual thread instead, so that fitness functions waiting on I/O keep many
+ * evaluations in flight without tying up platform threads. A semaphore bounds how many of them run
+ * at once, and evaluations that fail or time out get a fallback fitness.
+ */
+@ApplicationScoped
+public class FitnessEvaluator implements Evaluator<IntegerGene, Double>, AutoCloseable {
+
+  private final PlotPhenotype plotPhenotype;
+  private final int parallelism;
+  private final int batchSize;
+  private final ExecutorService executor;
+  private final boolean shared;
+  private final EvolutionMetrics metrics;
+  /** Permits of the blocking strategy, or null for the other strategies. */
+  private final Semaphore permits;
+  private final long timeoutMillis;
+  private final double fallback;
+
+  @Inject
+  FitnessEvaluator(final PlotPhenotype plotPhenotype, final GeneticProperties properties,
+      final EvolutionMetrics metrics) {
+    final Evaluation evaluation = properties.evaluation();
+    this.plotPhenotype = plotPhenotype;
+    this.parallelism = evaluation.parallelism() > 0
+        ? evaluation.parallelism()
+        : Runtime.getRuntime().availableProcessors();
+    this.batchSize = evaluation.batchSize();
+    this.executor = switch (evaluation.strategy()) {
+      case CALLER -> null;
+      case FORK_JOIN -> new ForkJoinPool(parallelism);
+      case VIRTUAL, BLOCKING -> Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("fitness-evaluator-", 0).factory());
+    };
+    this.shared = false;
+    this.metrics = metrics;
+    if (evaluation.strategy() == Strategy.BLOCKING) {
+      this.permits = new Semaphore(evaluation.maxConcurrency() > 0
+          ? evaluation.maxConcurrency()
+          : Integer.MAX_VALUE);
+      this.timeoutMillis = evaluation.timeoutMillis();
+      this.fallback = evaluation.fallbackFitness();
+      Log.info(LOG_FQCN, "Evaluating each individual on its own virtual thread, with at most {0} "
+              + "at once, a timeout of {1} ms and fallback fitness {2}",
+          arr(permits.availablePermits(), timeoutMillis, fallback), null);
+    } else {
+      this.permits = null;
+      this.timeoutMillis = 0;
+      this.fallback = 0;
+    }
+    Log.info(LOG_FQCN, "Evaluating fitness with strategy {0}, parallelism {1} and batch size {2}",
+        arr(evaluation.strategy(), parallelism, batchSize), null);
+  }
+
+  /**
+   * Creates an evaluator running on a pool shared with other evaluators. The pool is left open
+   * when the evaluator is closed.
+   *
+   * @param plotPhenotype the fitness function
+   * @param properties the settings, of which only the batch size applies; the strategy
+   *     is always the one of the shared pool
+   * @param pool the shared pool
+   * @param parallelism the number of workers of the pool
+   * @param metrics the metrics counting the evaluations
+   */
+  FitnessEvaluator(final PlotPhenotype plotPhenotype, final GeneticProperties properties,
+      final ExecutorService pool, final int parallelism, final EvolutionMetrics metrics) {
+    this.plotPhenotype = plotPhenotype;
+    this.parallelism = parallelism;
+    this.batchSize = properties.evaluation().batchSize();
+    this.executor = pool;
+    this.shared = true;
+    this.metrics = metrics;
+    this.permits = null;
+    this.timeoutMillis = 0;
+    this.fallback = 0;
+  }
+
+  /**
+   * Returns the executor backing the evaluation, so that the engine can share it.
+   *
+   * @return the executor, which runs tasks on the caller thread for the caller strategy
+   */
+  public Executor executor() {
+    return executor == null ? Runnable::run : executor;
+  }
+
+  @Override
+  public ISeq<Phenotype<IntegerGene, Double>> eval(
+      final Seq<Phenotype<IntegerGene, Double>> population) {
+    final MSeq<Phenotype<IntegerGene, Double>> result = MSeq.of(population);
+    final int[] pending = new int[result.size()];
+    int count = 0;
+    for (int i = 0; i < result.size(); i++) {
+      if (result.get(i).nonEvaluated()) {
+        pending[count++] = i;
+      }
+    }
+    metrics.evaluated(count);
+
+    if (permits != null) {
+      evaluateEach(result, pending, count);
+    } else if (executor == null) {
+      evaluate(result, pending, 0, count);
+    } else {
+      final int slice = batchSize > 0 ? batchSize : Math.ceilDiv(count, parallelism);
+      final List<CompletableFuture<Void>> tasks = new ArrayList<>();
+      for (int from = 0; from < count; from += slice) {
+        final int start = from;
+        final int end = Math.min(from + slice, count);
+        tasks.add(CompletableFuture.runAsync(() -> evaluate(result, pending, start, end), executor));
+      }
+      CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+    }
+    return result.toISeq();
+  }
+
+  private void evaluate(final MSeq<Phenotype<IntegerGene, Double>> population,
+      final int[] indices, final int from, final int to) {
+    for (int i = from; i < to; i++) {
+      final var phenotype = population.get(indices[i]);
+      population.set(indices[i], phenotype.withFitness(plotPhenotype.fitness(phenotype.genotype())));
+    }
+  }
+
+  private void evaluateEach(final MSeq<Phenotype<IntegerGene, Double>> population,
+      final int[] indices, final int count) {
+    final List<CompletableFuture<Double>> results = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      results.add(submit(population.get(indices[i]).genotype()));
+    }
+    int fallbacks = 0;
+    for (int i = 0; i < count; i++) {
+      double fitness;
+      try {
+        fitness = results.get(i).join();
+      } catch (final CompletionException e) {
+        Log.debug(LOG_FQCN, "Evaluation failed, using the fallback fitness: {0}",
+            arr(e.getCause()), null);
+        fitness = fallback;
+        fallbacks++;
+      }
+      population.set(indices[i], population.get(indices[i]).withFitness(fitness));
+    }
+    if (fallbacks > 0) {
+      metrics.fellBack(fallbacks);
+      Log.warn(LOG_FQCN, "{0} of {1} evaluations failed or timed out, and got fitness {2}",
+          arr(fallbacks, count, fallback), null);
+    }
+  }
+
+  /**
+   * Starts the evaluation of an individual on its own virtual thread, once a permit is available.
+   *
+   * @param genotype the genotype to evaluate
+   * @return the fitness, completed exceptionally if the evaluation failed or timed out
+   */
+  private CompletableFuture<Double> submit(final Genotype<IntegerGene> genotype) {
+    final var result = new CompletableFuture<Double>();
+    executor.execute(() -> {
+      permits.acquireUninterruptibly();
+      try {
+        if (timeoutMillis > 0) {
+          // the timeout only starts once the evaluation runs, and interrupts it if it is stuck
+          final Thread worker = Thread.currentThread();
+          result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+              worker.interrupt();
+            }
+          });
+        }
+        result.complete(plotPhenotype.fitness(genotype));
+      } catch (final Throwable e) {
+        // errors too, or a join without timeout would wait for this individual forever
+        result.completeExceptionally(e);
+      } finally {
+        permits.release();
+      }
+    });
+    return result;
+  }
+
+  @PreDestroy
+  @Override
+  public void close() {
+    if (executor != null && !shared) {
+      executor.close();
+    }
+  }
+}
@@ -1,11 +1,11 @@
 package io.nuevedejun.gadantic;
 
 import io.jenetics.IntegerGene;
-import io.jenetics.engine.Engine;
 import io.jenetics.engine.EvolutionResult;
 import io.jenetics.engine.EvolutionStart;
 import io.jenetics.engine.EvolutionStream;
 import io.quarkus.logging.Log;
+import io.quarkus.runtime.Quarkus;
 import io.quarkus.runtime.QuarkusApplication;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.annotations.QuarkusMain;
@@ -30,23 +30,33 @@ public class Gadantic implements QuarkusApplication {
   public static final String LOG_FQCN = Log.class.getName();
 
   private final GeneticProperties properties;
+  private final boolean serverMode;
   private final int shutdownMillis;
-  private final Engine<IntegerGene, Double> engine;
+  private final Archipelago archipelago;
   private final EvolutionPersistence persistence;
   private final PlotPrinter printer;
+  private final EvolutionMetrics metrics;
+  private final LocalSearch localSearch;
+  private final ParetoSearch paretoSearch;
 
   private final AtomicBoolean stopped = new AtomicBoolean(false);
   private final AtomicReference<Thread> mainThread = new AtomicReference<>(Thread.currentThread());
 
   Gadantic(final GeneticProperties properties,
+      @ConfigProperty(name = "server-mode", defaultValue = "false") final boolean serverMode,
       @ConfigProperty(name = "shutdown-wait-millis", defaultValue = "500") final int shutdownMillis,
-      final Engine<IntegerGene, Double> engine, final EvolutionPersistence persistence,
-      final PlotPrinter printer) {
+      final Archipelago archipelago, final EvolutionPersistence persistence,
+      final PlotPrinter printer, final EvolutionMetrics metrics, final LocalSearch localSearch,
+      final ParetoSearch paretoSearch) {
     this.properties = properties;
+    this.serverMode = serverMode;
     this.shutdownMillis = shutdownMillis;
-    this.engine = engine;
+    this.archipelago = archipelago;
     this.persistence = persistence;
     this.printer = printer;
+    this.metrics = metrics;
+    this.localSearch = localSearch;
+    this.paretoSearch = paretoSearch;
   }
 
   @Override
@@ -54,16 +64,43 @@ public int run(final String[] args) {
     Log.info("Initializing application");
     mainThread.set(Thread.currentThread());
 
+    if (serverMode) {
+      // evolutions are submitted through the REST API instead
+      Log.info("Serving optimization jobs until shutdown");
+      Quarkus.waitForExit();
+      return 0;
+    }
+
+    if (paretoSearch.enabled()) {
+      // the front is not a single best result, so it is neither saved nor refined
+      final var front = paretoSearch.evolve(stopped::get);
+      if (!front.isEmpty()) {
+        printer.print(front.get(0));
+      }
+      return 0;
+    }
+
     Log.info("Loading result of previous execution");
     final EvolutionStart<IntegerGene, Double> start = persistence.read();
 
     Log.info("Initiating evolution");
-    final EvolutionStream<IntegerGene, Double> stream = engine.stream(start);
-    final EvolutionResult<IntegerGene, Double> result = limitStream(stream)
+    final EvolutionLimit limit = EvolutionLimit.of(properties);
+    final EvolutionStream<IntegerGene, Double> stream = archipelago.stream(start,
+        () -> stopped.get() || limit.reached().isPresent());
+    final EvolutionResult<IntegerGene, Double> evolved = limitStream(stream, limit)
         .peek(printer::accept) //NOSONAR java:S3864 peek is ok for this use case
+        .peek(metrics::record) //NOSONAR java:S3864
+        .peek(persistence::checkpoint) //NOSONAR java:S3864
         .collect(EvolutionResult.toBestEvolutionResult());
 
-    Log.info("Evolution terminated. Saving result");
+    limit.reached().ifPresentOrElse(
+        rule -> Log.info(LOG_FQCN, "Evolution terminated by rule {0}. Saving result",
+            arr(rule), null),
+        () -> Log.info("Evolution stopped. Saving result"));
+    // a stopped application has no time left to refine the result
+    final EvolutionResult<IntegerGene, Double> result = stopped.get()
+        ? evolved
+        : localSearch.refine(evolved);
     persistence.write(result);
     Log.debug("Finished saving evolution result");
 
@@ -72,10 +109,13 @@ public int run(final String[] args) {
   }
 
   private Stream<EvolutionResult<IntegerGene, Double>> limitStream(
-      final EvolutionStream<IntegerGene, Double> stream) {
-    final var ongoing = stream.limit(r -> !stopped.get());
+      final EvolutionStream<IntegerGene, Double> stream, final EvolutionLimit limit) {
+    // the generation reaching the limit is kept, and the one evolved while checking it is not
+    final var ongoing = stream.limit(r -> !stopped.get() && limit.reached().isEmpty())
+        .peek(limit::test); //NOSONAR java:S3864
     final long generations = properties.generations();
     if (generations >= 0) {
+      // stop right away instead of evolving one more generation
       return ongoing.limit(generations);
     } else {
       return ongoing;
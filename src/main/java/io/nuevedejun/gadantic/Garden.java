@@ -0,0 +1,581 @@
+package io.nuevedejun.gadantic;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shape of the garden: a rectangle of tiles, some of which may be masked out so that nothing is
+ * planted on them.
+ * <p>
+ * Tile {@code (x, y)} has index {@code x + width * y}, and genotypes hold one gene per tile of the
+ * rectangle, masked or not. Genes of masked tiles are ignored. Everything that depends on the
+ * shape is precomputed once per garden: the squares that fit at each tile, the column masks of
+ * the neighbour shifts, the sides of the plantable area facing the border, and the tiles compared
+ * by each symmetry. Gardens are equal if their shapes are, and the {@link #DEFAULT} garden is the
+ * only one shared by every call to {@link #of(int, int, List)}.
+ * <p>
+ * Tile sets are {@link Bitboard}s, so a garden has at most {@link #MAX_TILES} tiles.
+ */
+public final class Garden {
+  /**
+   * Largest number of tiles of the rectangle of a garden.
+   */
+  public static final int MAX_TILES = 2 * Long.SIZE;
+  /**
+   * Character of a plantable tile in the rows of a mask.
+   */
+  public static final char PLANTABLE = '#';
+  /**
+   * Character of a masked tile in the rows of a mask.
+   */
+  public static final char MASKED = '.';
+
+  private static final int MAX_SIZE = 3;
+
+  /**
+   * The full 9x9 garden.
+   */
+  public static final Garden DEFAULT = of(9, 9, List.of());
+
+  private final int width;
+  private final int height;
+  private final int tiles;
+  private final String shape;
+  private final Bitboard full;
+  private final Bitboard plantable;
+  private final boolean[] plantableTiles;
+  private final int area;
+  private final Bitboard notFirstColumn;
+  private final Bitboard notLastColumn;
+  private final Bitboard[] squares;
+  private final int[] maxFit;
+  private final int border;
+  private final Bitboard horizontal;
+  private final Bitboard vertical;
+  private final Bitboard rotational;
+  private final int horizontalPairs;
+  private final int verticalPairs;
+  private final int rotationalPairs;
+
+  private Garden(final int width, final int height, final boolean[] mask, final String shape) {
+    this.width = width;
+    this.height = height;
+    this.tiles = width * height;
+    this.shape = shape;
+    this.full = region(0, 0, width, height);
+    this.plantableTiles = mask;
+    Bitboard set = Bitboard.EMPTY;
+    for (int tile = 0; tile < tiles; tile++) {
+      if (mask[tile]) {
+        set = set.or(Bitboard.tile(tile));
+      }
+    }
+    this.plantable = set;
+    this.area = set.count();
+    this.notFirstColumn = full.andNot(region(0, 0, 1, height));
+    this.notLastColumn = full.andNot(region(width - 1, 0, 1, height));
+
+    this.squares = new Bitboard[tiles * (MAX_SIZE + 1)];
+    this.maxFit = new int[tiles];
+    int sides = 0;
+    for (int tile = 0; tile < tiles; tile++) {
+      final int x = tile % width;
+      final int y = tile / width;
+      for (int size = 0; size <= MAX_SIZE; size++) {
+        squares[tile * (MAX_SIZE + 1) + size] = region(x, y, size, size);
+        if (size > 0 && x + size <= width && y + size <= height
+            && plantable.containsAll(squares[tile * (MAX_SIZE + 1) + size])) {
+          maxFit[tile] = size;
+        }
+      }
+      if (mask[tile]) {
+        sides += (y == 0 || !mask[tile - width] ? 1 : 0)
+            + (y == height - 1 || !mask[tile + width] ? 1 : 0)
+            + (x == 0 || !mask[tile - 1] ? 1 : 0)
+            + (x == width - 1 || !mask[tile + 1] ? 1 : 0);
+      }
+    }
+    this.border = sides;
+
+    // each symmetry compares one tile of every pair of plantable tiles, never a tile with itself
+    this.horizontal = region(0, 0, width / 2, height)
+        .and(plantable).and(mirrorHorizontal(plantable));
+    this.vertical = region(0, 0, width, height / 2)
+        .and(plantable).and(mirrorVertical(plantable));
+    this.rotational = region(0, 0, width / 2, height)
+        .or(width % 2 == 1 ? region(width / 2, 0, 1, height / 2) : Bitboard.EMPTY)
+        .and(plantable).and(rotate(plantable));
+    this.horizontalPairs = horizontal.count();
+    this.verticalPairs = vertical.count();
+    this.rotationalPairs = rotational.count();
+  }
+
+  /**
+   * Returns the garden of a shape.
+   *
+   * @param width the number of tiles of each row
+   * @param height the number of tiles of each column
+   * @param mask the rows of the garden from top to bottom, with {@value #PLANTABLE} for plantable
+   *     tiles and {@value #MASKED} for masked ones, or no rows for a full rectangle
+   * @return the garden
+   * @throws IllegalArgumentException if the shape is invalid or larger than {@link #MAX_TILES}
+   */
+  public static Garden of(final int width, final int height, final List<String> mask) {
+    if (width < 1 || height < 1 || width > Long.SIZE || width * height > MAX_TILES) {
+      throw new IllegalArgumentException("A garden has from 1 to " + MAX_TILES
+          + " tiles and rows of at most " + Long.SIZE + ", not " + width + "x" + height);
+    }
+    final boolean[] plantable = new boolean[width * height];
+    if (mask.isEmpty()) {
+      Arrays.fill(plantable, true);
+    } else if (mask.size() != height) {
+      throw new IllegalArgumentException("The mask has " + mask.size() + " rows instead of "
+          + height);
+    } else {
+      for (int y = 0; y < height; y++) {
+        final String row = mask.get(y).strip();
+        if (row.length() != width) {
+          throw new IllegalArgumentException("Row " + y + " of the mask has " + row.length()
+              + " tiles instead of " + width);
+        }
+        for (int x = 0; x < width; x++) {
+          final char c = row.charAt(x);
+          if (c != PLANTABLE && c != MASKED) {
+            throw new IllegalArgumentException("Invalid tile '" + c + "' in row " + y
+                + " of the mask");
+          }
+          plantable[x + y * width] = c == PLANTABLE;
+        }
+      }
+    }
+    final StringBuilder shape = new StringBuilder().append(width).append('x').append(height);
+    int area = 0;
+    for (final boolean tile : plantable) {
+      area += tile ? 1 : 0;
+    }
+    if (area == 0) {
+      throw new IllegalArgumentException("The mask has no plantable tiles");
+    }
+    if (area < plantable.length) {
+      for (int tile = 0; tile < plantable.length; tile++) {
+        shape.append(tile == 0 ? ":" : tile % width == 0 ? "/" : "")
+            .append(plantable[tile] ? PLANTABLE : MASKED);
+      }
+    }
+    final String key = shape.toString();
+    // only the default garden is shared, since clients of the jobs API may ask for any shape
+    return DEFAULT != null && DEFAULT.shape.equals(key)
+        ? DEFAULT
+        : new Garden(width, height, plantable, key);
+  }
+
+  /**
+   * Returns the garden configured for the genetic algorithm.
+   *
+   * @param properties the genetic algorithm settings
+   * @return the garden
+   */
+  public static Garden of(final GeneticProperties properties) {
+    final GeneticProperties.Shape shape = properties.shape();
+    return of(shape.width(), shape.height(), shape.mask().orElse(List.of()));
+  }
+
+  /**
+   * Parses the {@link #toString() description} of a garden.
+   *
+   * @param shape the description
+   * @return the garden
+   * @throws IllegalArgumentException if the description is invalid
+   */
+  public static Garden parse(final String shape) {
+    try {
+      final String[] parts = shape.split(":", 2);
+      final String[] sides = parts[0].split("x", 2);
+      return of(Integer.parseInt(sides[0]), Integer.parseInt(sides[1]),
+          parts.length == 1 ? List.of() : List.of(parts[1].split("/")));
+    } catch (final RuntimeException e) {
+      throw new IllegalArgumentException("Invalid garden " + shape, e);
+    }
+  }
+
+  /**
+   * Returns the number of tiles of each row.
+   *
+   * @return the width
+   */
+  public int width() {
+    return width;
+  }
+
+  /**
+   * Returns the number of tiles of each column.
+   *
+   * @return the height
+   */
+  public int height() {
+    return height;
+  }
+
+  /**
+   * Returns the number of tiles of the rectangle, which is the length of genotypes.
+   *
+   * @return the tile count
+   */
+  public int tiles() {
+    return tiles;
+  }
+
+  /**
+   * Returns the number of plantable tiles.
+   *
+   * @return the plantable tile count
+   */
+  public int area() {
+    return area;
+  }
+
+  /**
+   * Checks if a tile can be planted.
+   *
+   * @param tile the tile index
+   * @return false if the tile is masked
+   */
+  public boolean plantable(final int tile) {
+    return plantableTiles[tile];
+  }
+
+  /**
+   * Returns the plantable tiles.
+   *
+   * @return the set of tiles
+   */
+  public Bitboard plantable() {
+    return plantable;
+  }
+
+  /**
+   * Returns the largest side of a square crop with its upper left corner at a tile that fits in
+   * the plantable tiles.
+   *
+   * @param tile the tile index
+   * @return the side, up to 3, or 0 for a masked tile
+   */
+  public int maxFit(final int tile) {
+    return maxFit[tile];
+  }
+
+  /**
+   * Returns the number of sides of plantable tiles that face the border of the garden or a masked
+   * tile, through which no buffs are received.
+   *
+   * @return the side count, 36 for the full 9x9 garden
+   */
+  public int border() {
+    return border;
+  }
+
+  /**
+   * Returns the tiles of a rectangle. Parts of the rectangle outside the garden are dropped.
+   *
+   * @param x the x coordinate of the upper left corner
+   * @param y the y coordinate of the upper left corner
+   * @param width the width of the rectangle
+   * @param height the height of the rectangle
+   * @return the set of tiles
+   */
+  public Bitboard region(final int x, final int y, final int width, final int height) {
+    Bitboard region = Bitboard.EMPTY;
+    for (int j = Math.max(y, 0); j < Math.min(y + height, this.height); j++) {
+      for (int i = Math.max(x, 0); i < Math.min(x + width, this.width); i++) {
+        region = region.or(Bitboard.tile(i + j * this.width));
+      }
+    }
+    return region;
+  }
+
+  /**
+   * Returns the tiles of a square crop. Squares are precomputed, so this is a table lookup.
+   *
+   * @param x the x coordinate of the upper left corner
+   * @param y the y coordinate of the upper left corner
+   * @param size the side of the square, up to 3
+   * @return the set of tiles, clipped to the garden
+   */
+  public Bitboard square(final int x, final int y, final int size) {
+    return squares[(x + y * width) * (MAX_SIZE + 1) + size];
+  }
+
+  /**
+   * Moves every tile one row up. Tiles in the first row are dropped.
+   *
+   * @param tiles the set to move
+   * @return the shifted set
+   */
+  public Bitboard north(final Bitboard tiles) {
+    return new Bitboard(northLo(tiles.lo(), tiles.hi()), northHi(tiles.lo(), tiles.hi()));
+  }
+
+  /**
+   * Moves every tile one row down. Tiles in the last row are dropped.
+   *
+   * @param tiles the set to move
+   * @return the shifted set
+   */
+  public Bitboard south(final Bitboard tiles) {
+    return new Bitboard(southLo(tiles.lo(), tiles.hi()), southHi(tiles.lo(), tiles.hi()));
+  }
+
+  /**
+   * Moves every tile one column left. Tiles in the first column are dropped.
+   *
+   * @param tiles the set to move
+   * @return the shifted set
+   */
+  public Bitboard west(final Bitboard tiles) {
+    return new Bitboard(westLo(tiles.lo(), tiles.hi()), westHi(tiles.lo(), tiles.hi()));
+  }
+
+  /**
+   * Moves every tile one column right. Tiles in the last column are dropped.
+   *
+   * @param tiles the set to move
+   * @return the shifted set
+   */
+  public Bitboard east(final Bitboard tiles) {
+    return new Bitboard(eastLo(tiles.lo(), tiles.hi()), eastHi(tiles.lo(), tiles.hi()));
+  }
+
+  /**
+   * Rotates the set 180° around the center of the garden, so that tile {@code i} goes to
+   * {@code tiles - 1 - i}.
+   *
+   * @param tiles the set to rotate
+   * @return the rotated set
+   */
+  public Bitboard rotate(final Bitboard tiles) {
+    return new Bitboard(rotateLo(tiles.lo(), tiles.hi()), rotateHi(tiles.lo(), tiles.hi()));
+  }
+
+  /**
+   * Mirrors the set top to bottom, so that tile {@code (x, y)} goes to
+   * {@code (x, height - 1 - y)}.
+   *
+   * @param tiles the set to mirror
+   * @return the mirrored set
+   */
+  public Bitboard mirrorVertical(final Bitboard tiles) {
+    return new Bitboard(mirrorVerticalLo(tiles.lo(), tiles.hi()),
+        mirrorVerticalHi(tiles.lo(), tiles.hi()));
+  }
+
+  /**
+   * Mirrors the set left to right, so that tile {@code (x, y)} goes to {@code (width - 1 - x, y)}.
+   *
+   * @param tiles the set to mirror
+   * @return the mirrored set
+   */
+  public Bitboard mirrorHorizontal(final Bitboard tiles) {
+    return new Bitboard(mirrorHorizontalLo(tiles.lo(), tiles.hi()),
+        mirrorHorizontalHi(tiles.lo(), tiles.hi()));
+  }
+
+  // the word-level moves below take and return the raw words of a set, so that hot loops can
+  // move sets without creating bitboards
+
+  long northLo(final long lo, final long hi) {
+    return Bitboard.shiftRightLo(lo, hi, width);
+  }
+
+  long northHi(final long lo, final long hi) {
+    return Bitboard.shiftRightHi(hi, width);
+  }
+
+  long southLo(final long lo, final long hi) {
+    return Bitboard.shiftLeftLo(lo, width) & full.lo();
+  }
+
+  long southHi(final long lo, final long hi) {
+    return Bitboard.shiftLeftHi(lo, hi, width) & full.hi();
+  }
+
+  long westLo(final long lo, final long hi) {
+    return Bitboard.shiftRightLo(lo & notFirstColumn.lo(), hi & notFirstColumn.hi(), 1);
+  }
+
+  long westHi(final long lo, final long hi) {
+    return (hi & notFirstColumn.hi()) >>> 1;
+  }
+
+  long eastLo(final long lo, final long hi) {
+    return (lo & notLastColumn.lo()) << 1;
+  }
+
+  long eastHi(final long lo, final long hi) {
+    return Bitboard.shiftLeftHi(lo & notLastColumn.lo(), hi & notLastColumn.hi(), 1);
+  }
+
+  long rotateLo(final long lo, final long hi) {
+    // reversing the 128-bit word moves bit i to 127 - i
+    return Bitboard.shiftRightLo(Long.reverse(hi), Long.reverse(lo), MAX_TILES - tiles);
+  }
+
+  long rotateHi(final long lo, final long hi) {
+    return Bitboard.shiftRightHi(Long.reverse(lo), MAX_TILES - tiles);
+  }
+
+  long mirrorVerticalLo(final long lo, final long hi) {
+    final long row = -1L >>> (Long.SIZE - width);
+    long l = 0;
+    for (int y = 0; y < height; y++) {
+      final long bits = Bitboard.shiftRightLo(lo, hi, y * width) & row;
+      l |= Bitboard.shiftLeftLo(bits, (height - 1 - y) * width);
+    }
+    return l & full.lo();
+  }
+
+  long mirrorVerticalHi(final long lo, final long hi) {
+    final long row = -1L >>> (Long.SIZE - width);
+    long h = 0;
+    for (int y = 0; y < height; y++) {
+      final long bits = Bitboard.shiftRightLo(lo, hi, y * width) & row;
+      h |= Bitboard.shiftLeftHi(bits, 0, (height - 1 - y) * width);
+    }
+    return h & full.hi();
+  }
+
+  long mirrorHorizontalLo(final long lo, final long hi) {
+    return mirrorVerticalLo(rotateLo(lo, hi), rotateHi(lo, hi));
+  }
+
+  long mirrorHorizontalHi(final long lo, final long hi) {
+    return mirrorVerticalHi(rotateLo(lo, hi), rotateHi(lo, hi));
+  }
+
+  /**
+   * Returns the tiles compared by the horizontal symmetry: the plantable tiles of the left half
+   * whose mirror tile is plantable.
+   *
+   * @return the set of tiles
+   */
+  public Bitboard horizontal() {
+    return horizontal;
+  }
+
+  /**
+   * Returns the tiles compared by the vertical symmetry: the plantable tiles of the upper half
+   * whose mirror tile is plantable.
+   *
+   * @return the set of tiles
+   */
+  public Bitboard vertical() {
+    return vertical;
+  }
+
+  /**
+   * Returns the tiles compared by the rotational symmetry: the plantable tiles of the left half
+   * and the top of the center column whose rotated tile is plantable.
+   *
+   * @return the set of tiles
+   */
+  public Bitboard rotational() {
+    return rotational;
+  }
+
+  /**
+   * Returns the tile compared with the given one by the horizontal symmetry.
+   *
+   * @param tile the tile index
+   * @return the mirror tile, or -1 if the tile is not compared
+   */
+  public int horizontalPartner(final int tile) {
+    return horizontal.has(tile) ? width - 1 - tile % width + tile / width * width : -1;
+  }
+
+  /**
+   * Returns the tile compared with the given one by the vertical symmetry.
+   *
+   * @param tile the tile index
+   * @return the mirror tile, or -1 if the tile is not compared
+   */
+  public int verticalPartner(final int tile) {
+    return vertical.has(tile) ? tile % width + (height - 1 - tile / width) * width : -1;
+  }
+
+  /**
+   * Returns the tile compared with the given one by the rotational symmetry.
+   *
+   * @param tile the tile index
+   * @return the rotated tile, or -1 if the tile is not compared
+   */
+  public int rotationalPartner(final int tile) {
+    return rotational.has(tile) ? tiles - 1 - tile : -1;
+  }
+
+  /**
+   * Returns the number of pairs of tiles compared by the horizontal symmetry.
+   *
+   * @return the pair count, 36 for the full 9x9 garden
+   */
+  public int horizontalPairs() {
+    return horizontalPairs;
+  }
+
+  /**
+   * Returns the number of pairs of tiles compared by the vertical symmetry.
+   *
+   * @return the pair count, 36 for the full 9x9 garden
+   */
+  public int verticalPairs() {
+    return verticalPairs;
+  }
+
+  /**
+   * Returns the number of pairs of tiles compared by the rotational symmetry.
+   *
+   * @return the pair count, 40 for the full 9x9 garden
+   */
+  public int rotationalPairs() {
+    return rotationalPairs;
+  }
+
+  /**
+   * Returns a fingerprint of the shape, which is 0 for the {@link #DEFAULT} garden so that keys
+   * derived from it before gardens were configurable stay valid.
+   *
+   * @return the fingerprint
+   */
+  public long fingerprint() {
+    if (DEFAULT.shape.equals(shape)) {
+      return 0;
+    }
+    // 64-bit FNV-1a over the characters of the description, which are all ASCII
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < shape.length(); i++) {
+      hash ^= shape.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash == 0 ? 1 : hash;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    return this == o || o instanceof final Garden garden && shape.equals(garden.shape);
+  }
+
+  @Override
+  public int hashCode() {
+    return shape.hashCode();
+  }
+
+  /**
+   * Describes the shape as {@code <width>x<height>}, followed by {@code :} and the rows of the
+   * mask separated by {@code /} if any tile is masked. The description is
+   * {@link #parse(String) parsed} back to the same garden.
+   *
+   * @return the description
+   */
+  @Override
+  public String toString() {
+    return shape;
+  }
+}
@@ -3,6 +3,10 @@
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithDefault;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
 /**
  * Configuration properties for genetic algorithm parameters.
  */
@@ -80,4 +84,350 @@ public interface GeneticProperties {
    */
   @WithDefault("0.01")
   double replacementProbability();
+
+  /**
+   * How genotypes encode plots.
+   *
+   * @return the encoding kind
+   */
+  @WithDefault("direct")
+  PlotEncoding.Kind encoding();
+
+  /**
+   * Settings of the fitness evaluation.
+   *
+   * @return the evaluation settings
+   */
+  Evaluation evaluation();
+
+  /**
+   * Settings of the island model.
+   *
+   * @return the island settings
+   */
+  Islands islands();
+
+  /**
+   * Settings of the rules that stop the evolution before {@link #generations()}.
+   *
+   * @return the termination settings
+   */
+  Termination termination();
+
+  /**
+   * Settings of the local search refining the best individuals.
+   *
+   * @return the local search settings
+   */
+  LocalSearch localSearch();
+
+  /**
+   * Shape of the garden to plan.
+   *
+   * @return the garden shape
+   */
+  Shape shape();
+
+  /**
+   * Settings of the multi-objective evolution.
+   *
+   * @return the Pareto settings
+   */
+  Pareto pareto();
+
+  /**
+   * Configuration of how individuals are scheduled for fitness evaluation.
+   */
+  interface Evaluation {
+
+    /**
+     * Where fitness evaluations run.
+     */
+    enum Strategy {
+      /**
+       * Evaluate on the thread driving the evolution.
+       */
+      CALLER,
+      /**
+       * Evaluate on a dedicated fork-join pool.
+       */
+      FORK_JOIN,
+      /**
+       * Evaluate on virtual threads.
+       */
+      VIRTUAL,
+      /**
+       * Evaluate every individual on its own virtual thread, for fitness functions that block on
+       * I/O. Concurrency, timeouts and failures are handled as configured by
+       * {@link #maxConcurrency()}, {@link #timeoutMillis()} and {@link #fallbackFitness()}.
+       */
+      BLOCKING
+    }
+
+    /**
+     * Strategy used to run fitness evaluations.
+     *
+     * @return the evaluation strategy
+     */
+    @WithDefault("fork-join")
+    Strategy strategy();
+
+    /**
+     * Number of workers evaluating in parallel (0 for the number of available processors).
+     *
+     * @return the parallelism
+     */
+    @WithDefault("0")
+    int parallelism();
+
+    /**
+     * Number of individuals handed to a worker as a single task (0 to split the population evenly
+     * among workers).
+     *
+     * @return the batch size
+     */
+    @WithDefault("0")
+    int batchSize();
+
+    /**
+     * Maximum number of individuals evaluated at the same time by the blocking strategy (0 for no
+     * limit).
+     *
+     * @return the maximum concurrency
+     */
+    @WithDefault("256")
+    int maxConcurrency();
+
+    /**
+     * Milliseconds an evaluation of the blocking strategy may run before it is interrupted and the
+     * individual gets the fallback fitness (0 to wait indefinitely).
+     *
+     * @return the timeout
+     */
+    @WithDefault("0")
+    long timeoutMillis();
+
+    /**
+     * Fitness given by the blocking strategy to individuals whose evaluation failed or timed out.
+     *
+     * @return the fallback fitness
+     */
+    @WithDefault("0.0")
+    double fallbackFitness();
+
+    /**
+     * Maximum number of tiles changed by a point mutation for the offspring to be evaluated
+     * incrementally from its parent (0 to always evaluate in full).
+     *
+     * @return the incremental limit
+     */
+    @WithDefault("16")
+    int incrementalLimit();
+  }
+
+  /**
+   * Configuration of the island model, where several populations evolve independently and
+   * periodically exchange their best individuals.
+   */
+  interface Islands {
+
+    /**
+     * Which islands receive the migrants of each island.
+     */
+    enum Topology {
+      /**
+       * Each island sends its migrants to the next one, wrapping around at the end.
+       */
+      RING,
+      /**
+       * Each island sends its migrants to every other island.
+       */
+      FULLY_CONNECTED
+    }
+
+    /**
+     * Number of islands, each with a population of {@link GeneticProperties#populationSize()}
+     * individuals (1 for a single population without migration).
+     *
+     * @return the island count
+     */
+    @WithDefault("1")
+    int count();
+
+    /**
+     * Number of generations each island evolves on its own between migrations.
+     *
+     * @return the migration interval
+     */
+    @WithDefault("10")
+    int migrationInterval();
+
+    /**
+     * Number of best individuals each island sends on every migration.
+     *
+     * @return the migrant count
+     */
+    @WithDefault("2")
+    int migrants();
+
+    /**
+     * Topology of the migrations.
+     *
+     * @return the migration topology
+     */
+    @WithDefault("ring")
+    Topology topology();
+  }
+
+  /**
+   * Configuration of the rules that stop the evolution once it no longer makes progress. The
+   * evolution stops as soon as any enabled rule is reached.
+   */
+  interface Termination {
+
+    /**
+     * Number of generations without improving the best fitness after which the evolution stops
+     * (0 to disable).
+     *
+     * @return the steady generation count
+     */
+    @WithDefault("0")
+    int steadyGenerations();
+
+    /**
+     * Best fitness at which the evolution stops (unset to disable).
+     *
+     * @return the target fitness
+     */
+    OptionalDouble targetFitness();
+
+    /**
+     * Milliseconds after which the evolution stops (0 to disable).
+     *
+     * @return the time limit
+     */
+    @WithDefault("0")
+    long timeLimitMillis();
+
+    /**
+     * Number of generations over which the improvement of the best fitness is measured for
+     * {@link #convergenceRate()} (0 to disable).
+     *
+     * @return the convergence window
+     */
+    @WithDefault("0")
+    int convergenceGenerations();
+
+    /**
+     * Relative improvement of the best fitness over {@link #convergenceGenerations()} below which
+     * the evolution stops, e.g. 0.01 for 1%.
+     *
+     * @return the convergence rate
+     */
+    @WithDefault("0.001")
+    double convergenceRate();
+  }
+
+  /**
+   * Configuration of the local search that refines the best individuals of the population: after
+   * the evolution, and optionally every few generations.
+   */
+  interface LocalSearch {
+
+    /**
+     * Number of best individuals refined (0 to disable the local search).
+     *
+     * @return the elite size
+     */
+    @WithDefault("0")
+    int elite();
+
+    /**
+     * Number of moves tried on each refined individual.
+     *
+     * @return the step count
+     */
+    @WithDefault("500")
+    int steps();
+
+    /**
+     * Number of generations between refinements during the evolution (0 to only refine after the
+     * evolution).
+     *
+     * @return the refinement interval
+     */
+    @WithDefault("0")
+    int interval();
+
+    /**
+     * Initial temperature of the simulated annealing, in fitness units, cooling down linearly to
+     * 0 over the steps (0 for plain hill climbing).
+     *
+     * @return the initial temperature
+     */
+    @WithDefault("0")
+    double temperature();
+  }
+
+  /**
+   * Shape of the garden, see {@link Garden}.
+   */
+  interface Shape {
+
+    /**
+     * Number of tiles of each row.
+     *
+     * @return the width
+     */
+    @WithDefault("9")
+    int width();
+
+    /**
+     * Number of tiles of each column.
+     *
+     * @return the height
+     */
+    @WithDefault("9")
+    int height();
+
+    /**
+     * Rows of the garden from top to bottom, with {@code #} for plantable tiles and {@code .} for
+     * masked ones (all tiles are plantable if unset).
+     *
+     * @return the mask rows
+     */
+    Optional<List<String>> mask();
+  }
+
+  /**
+   * Configuration of the multi-objective evolution, which keeps the Pareto front of the chosen
+   * objectives instead of maximizing the weighted fitness, see {@link ParetoSearch}.
+   */
+  interface Pareto {
+
+    /**
+     * Whether the evolution is multi-objective. Only applies outside server mode.
+     *
+     * @return true to evolve the Pareto front
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Objectives maximized together.
+     *
+     * @return the objectives
+     */
+    @WithDefault("water,weed,quality,harvest,unique,efficiency")
+    List<ParetoSearch.Objective> objectives();
+
+    /**
+     * Number of plots the front is trimmed to, dropping the most crowded ones, whenever it grows
+     * to twice as many.
+     *
+     * @return the front size
+     */
+    @WithDefault("50")
+    int frontSize();
+  }
 }
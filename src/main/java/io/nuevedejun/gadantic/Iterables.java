@@ -1,5 +1,6 @@
 package io.nuevedejun.gadantic;
 
+import io.jenetics.util.RandomRegistry;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.ArrayList;
@@ -208,7 +209,6 @@ public static <T> Grid<T> grid(final List<T> backed, final int width) {
    * Shuffles the elements in a finite iterable.
    * @implNote I created this method in an interface to more easily mock it in unit tests.
    */
-  @FunctionalInterface
   public interface Shuffler {
     /**
      * Shuffles the elements of an iterable.
@@ -219,6 +219,15 @@ public interface Shuffler {
      */
     <T> List<T> shuffle(final Iterable<? extends T> original);
 
+    /**
+     * Shuffles in place a permutation of the tile indices of a grid. Tile {@code (x, y)} has index
+     * {@code x + width * y}. The array is meant to be reused, so its current order is irrelevant.
+     *
+     * @param tiles the permutation of tile indices to shuffle
+     * @param width the grid width
+     */
+    void shuffle(final int[] tiles, final int width);
+
     @ApplicationScoped
     class Impl implements Shuffler {
       @Override
@@ -228,6 +237,17 @@ public <T> List<T> shuffle(final Iterable<? extends T> original) {
         Collections.shuffle(aux);
         return List.copyOf(aux);
       }
+
+      @Override
+      public void shuffle(final int[] tiles, final int width) {
+        final var random = RandomRegistry.random();
+        for (int i = tiles.length - 1; i > 0; i--) {
+          final int j = random.nextInt(i + 1);
+          final int swap = tiles[i];
+          tiles[i] = tiles[j];
+          tiles[j] = swap;
+        }
+      }
     }
   }
 
@@ -0,0 +1,263 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.smallrye.mutiny.Multi;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * REST API to launch, follow and stop optimization jobs.
+ */
+@Path("/jobs")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class JobResource {
+
+  /**
+   * Progress of a job.
+   *
+   * @param id the job id
+   * @param created when the job was submitted
+   * @param priority the share of the turns given to the job
+   * @param state the job state
+   * @param generation the last generation evolved
+   * @param best the best plot found so far, if any
+   * @param termination the termination rule that completed the job, if any
+   * @param error why the job failed, if it did
+   */
+  public record JobView(String id, Instant created, int priority, Jobs.State state,
+      long generation, PlotView best, EvolutionLimit.Rule termination, String error) {
+  }
+
+  /**
+   * A plot and its statistics.
+   *
+   * @param fitness the fitness of the plot
+   * @param generation the generation in which the plot was created
+   * @param crops the crop ordinal of each tile in row-major order; tiles covered by a bigger crop
+   * hold a single-tile crop, and masked tiles are ignored
+   * @param garden the shape of the garden, as described by {@link Garden#toString()}
+   * @param water number of tiles with full water perk
+   * @param weed number of tiles with full weed perk
+   * @param quality number of tiles with full quality perk
+   * @param harvest number of tiles with full harvest perk
+   * @param unique number of distinct crop types
+   * @param efficiency ratio of successful buff applications to available slots
+   * @param horizontalSymmetry horizontal symmetry score [0, 1]
+   * @param verticalSymmetry vertical symmetry score [0, 1]
+   * @param rotationalSymmetry rotational symmetry score [0, 1]
+   * @param layoutUrl URL to visualize the layout in the garden planner; null if the planner
+   * cannot show the garden
+   */
+  public record PlotView(double fitness, long generation, int[] crops, String garden,
+      int water, int weed, int quality, int harvest, int unique, double efficiency,
+      double horizontalSymmetry, double verticalSymmetry, double rotationalSymmetry,
+      String layoutUrl) {
+  }
+
+  /**
+   * Window of the best plot of a job to solve exactly.
+   *
+   * @param x the x coordinate of the upper left corner; 0 if null
+   * @param y the y coordinate of the upper left corner; 0 if null
+   * @param width the width of the window; 3 if null
+   * @param height the height of the window; 3 if null
+   * @param crops the ordinals of the single-tile crops allowed in the window; all of them if null
+   */
+  public record SolveRequest(Integer x, Integer y, Integer width, Integer height, int[] crops) {
+  }
+
+  /**
+   * Outcome of solving a window of the best plot of a job.
+   *
+   * @param fitness the fitness of the best plot of the job
+   * @param optimum the best plot found by the solver, at least as fit as the job's
+   * @param bound an upper bound of the fitness of any plot the window allows
+   * @param exact true if the search completed, so the optimum is certified
+   * @param nodes the number of partial plots explored
+   */
+  public record SolutionView(double fitness, PlotView optimum, double bound, boolean exact,
+      long nodes) {
+  }
+
+  private static final int DEFAULT_WINDOW = 3;
+
+  private final Jobs jobs;
+  private final PlotDecoder decoder;
+
+  JobResource(final Jobs jobs, final PlotDecoder decoder) {
+    this.jobs = jobs;
+    this.decoder = decoder;
+  }
+
+  /**
+   * Starts a job.
+   *
+   * @param request the settings of the job
+   * @param uriInfo the request URI, to locate the new job
+   * @return the created job
+   */
+  @POST
+  public Response submit(final Jobs.Request request, @Context final UriInfo uriInfo) {
+    final Jobs.Job job;
+    try {
+      job = jobs.submit(request == null ? new Jobs.Request(null, null, null, null) : request);
+    } catch (final IllegalArgumentException e) {
+      throw new BadRequestException(e.getMessage(), e);
+    } catch (final RejectedExecutionException e) {
+      throw new ServiceUnavailableException(e.getMessage());
+    }
+    return Response.created(uriInfo.getAbsolutePathBuilder().path(job.id()).build())
+        .entity(view(job))
+        .build();
+  }
+
+  /**
+   * Lists all jobs, oldest first.
+   *
+   * @return the jobs
+   */
+  @GET
+  public List<JobView> list() {
+    return jobs.list().stream()
+        .sorted(Comparator.comparing(Jobs.Job::created))
+        .map(this::view)
+        .toList();
+  }
+
+  /**
+   * Returns the progress of a job.
+   *
+   * @param id the job id
+   * @return the job
+   */
+  @GET
+  @Path("{id}")
+  public JobView get(@PathParam("id") final String id) {
+    return jobs.get(id).map(this::view).orElseThrow(NotFoundException::new);
+  }
+
+  /**
+   * Stops a job after the generation being evolved.
+   *
+   * @param id the job id
+   * @return the job
+   */
+  @DELETE
+  @Path("{id}")
+  public JobView cancel(@PathParam("id") final String id) {
+    return jobs.cancel(id).map(this::view).orElseThrow(NotFoundException::new);
+  }
+
+  /**
+   * Finds the best plot that differs from the best plot of a job only in the single-tile crops of
+   * a window, with a branch and bound search. A certified optimum shows how far the job is from
+   * the best plot of its neighbourhood; an improvement shows that it is not optimal.
+   *
+   * @param id the job id
+   * @param request the window to solve
+   * @return the solution
+   */
+  @POST
+  @Path("{id}/solve")
+  public SolutionView solve(@PathParam("id") final String id, final SolveRequest request) {
+    final SolveRequest window = request == null
+        ? new SolveRequest(null, null, null, null, null)
+        : request;
+    final Jobs.Job job = jobs.get(id).orElseThrow(NotFoundException::new);
+    final ExactSolver.Solution solution;
+    try {
+      solution = jobs.solve(id, new ExactSolver.Window(
+              Objects.requireNonNullElse(window.x(), 0),
+              Objects.requireNonNullElse(window.y(), 0),
+              Objects.requireNonNullElse(window.width(), DEFAULT_WINDOW),
+              Objects.requireNonNullElse(window.height(), DEFAULT_WINDOW)),
+          window.crops() == null ? ExactSolver.singleTileCrops() : window.crops())
+          .orElseThrow(NotFoundException::new);
+    } catch (final IllegalArgumentException e) {
+      throw new BadRequestException(e.getMessage(), e);
+    }
+    final var best = job.best().orElseThrow();
+    final var genotype = Genotype.of(IntegerChromosome.of(Arrays.stream(solution.plot())
+        .mapToObj(crop -> IntegerGene.of(crop, 0, PlotPhenotype.Crop.len()))
+        .toList()));
+    return new SolutionView(best.fitness(),
+        plot(genotype, job.encoding().garden(), solution.fitness(), best.generation()),
+        solution.bound(),
+        solution.exact(), solution.nodes());
+  }
+
+  /**
+   * Streams the progress of a job as server-sent events until it finishes. {@code progress}
+   * events carry the {@link Jobs.Progress statistics} of each generation, and {@code best} events
+   * the best plot found so far, sent on subscription and whenever it improves. Slow clients only
+   * get the latest event of each kind.
+   *
+   * @param id the job id
+   * @param sse the factory of events
+   * @return the stream of events
+   */
+  @GET
+  @Path("{id}/events")
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  public Multi<OutboundSseEvent> events(@PathParam("id") final String id,
+      @Context final Sse sse) {
+    final Jobs.Job job = jobs.get(id).orElseThrow(NotFoundException::new);
+    return Multi.createBy().merging().streams(
+        job.progress().map(progress -> event(sse, "progress", progress)),
+        job.improvements().map(best -> event(sse, "best", plot(job.encoding(), best))));
+  }
+
+  private static OutboundSseEvent event(final Sse sse, final String name, final Object data) {
+    return sse.newEventBuilder()
+        .name(name)
+        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+        .data(data)
+        .build();
+  }
+
+  private JobView view(final Jobs.Job job) {
+    return new JobView(job.id(), job.created(), job.priority(), job.state(), job.generation(),
+        job.best().map(best -> plot(job.encoding(), best)).orElse(null),
+        job.termination().orElse(null), job.error().orElse(null));
+  }
+
+  private PlotView plot(final PlotEncoding encoding, final Phenotype<IntegerGene, Double> best) {
+    return plot(encoding.decode(best.genotype()), encoding.garden(), best.fitness(),
+        best.generation());
+  }
+
+  private PlotView plot(final Genotype<IntegerGene> genotype, final Garden garden,
+      final double fitness, final long generation) {
+    final Plot plot = decoder.decode(genotype, garden);
+    return new PlotView(fitness, generation,
+        genotype.chromosome().as(IntegerChromosome.class).toArray(), garden.toString(),
+        plot.water(), plot.weed(), plot.quality(), plot.harvest(), plot.unique(),
+        plot.efficiency(), plot.horizontalSymmetry(), plot.verticalSymmetry(),
+        plot.rotationalSymmetry(), plot.layoutUrl());
+  }
+}
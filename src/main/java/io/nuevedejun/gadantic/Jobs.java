@@ -0,0 +1,702 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.util.ISeq;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.quarkus.logging.Log;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import io.smallrye.config.WithDefault;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.Config;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
+import static io.nuevedejun.gadantic.Iterables.arr;
+
+/**
+ * Optimization jobs running inside the application, so that a single process can serve many of
+ * them.
+ * <p>
+ * Each job overrides the configured {@link FitnessCoefficients} and {@link GeneticProperties},
+ * and gets its own engine, fitness cache, lineage and local search built from them. All jobs
+ * evaluate fitness on one pool of {@link Settings#parallelism()} workers, so running many of them
+ * does not oversubscribe the cores.
+ * <p>
+ * Jobs take turns of {@link Settings#slice()} generations, up to {@link Settings#concurrency()}
+ * at a time. The next turn goes to the job that has received the least service relative to its
+ * priority, so a job of priority 2 evolves twice as many generations as one of priority 1, and
+ * none of them starves. Jobs beyond {@link Settings#capacity()} are rejected. A job completes as
+ * soon as it reaches any rule of its {@link EvolutionLimit}, which frees its turns for the others.
+ * <p>
+ * Jobs start from the individuals of the {@link ResultStore} and serve its best plot until they
+ * find a better one. Finished jobs merge their last population back into it, and release their
+ * engine, populations, cache and lineage, keeping only what their view needs. They are forgotten
+ * altogether after {@link Settings#retentionMillis()}, or once more than
+ * {@link Settings#retained()} jobs have finished after them.
+ */
+@ApplicationScoped
+public class Jobs implements AutoCloseable {
+
+  /**
+   * Configuration of the job scheduler.
+   */
+  @ConfigMapping(prefix = "jobs")
+  public interface Settings {
+
+    /**
+     * Number of workers evaluating fitness for all jobs (0 for the number of available
+     * processors).
+     *
+     * @return the parallelism
+     */
+    @WithDefault("0")
+    int parallelism();
+
+    /**
+     * Number of jobs evolving at the same time.
+     *
+     * @return the concurrency
+     */
+    @WithDefault("2")
+    int concurrency();
+
+    /**
+     * Number of generations a job evolves in each turn.
+     *
+     * @return the time slice
+     */
+    @WithDefault("1")
+    int slice();
+
+    /**
+     * Maximum number of unfinished jobs. Further submissions are rejected.
+     *
+     * @return the capacity
+     */
+    @WithDefault("16")
+    int capacity();
+
+    /**
+     * Milliseconds a finished job is kept before it is forgotten (0 forgets it right away).
+     *
+     * @return the retention time
+     */
+    @WithDefault("3600000")
+    long retentionMillis();
+
+    /**
+     * Maximum number of finished jobs kept. The oldest ones are forgotten first.
+     *
+     * @return the retained job count
+     */
+    @WithDefault("64")
+    int retained();
+  }
+
+  /**
+   * Lifecycle of a job.
+   */
+  public enum State {
+    /**
+     * The job is evolving.
+     */
+    RUNNING,
+    /**
+     * The job reached its generation limit or another termination rule.
+     */
+    COMPLETED,
+    /**
+     * The job was cancelled before reaching a termination rule.
+     */
+    CANCELLED,
+    /**
+     * The job stopped because of an error.
+     */
+    FAILED
+  }
+
+  /**
+   * Settings of a job, as configuration properties overriding the application's.
+   *
+   * @param priority the share of the turns given to the job, from {@value #MIN_PRIORITY} to
+   * {@value #MAX_PRIORITY}; {@value #DEFAULT_PRIORITY} if null
+   * @param fitness properties relative to the {@code fitness} prefix, e.g. {@code unique-crops}
+   * @param ga properties relative to the {@code ga} prefix, e.g. {@code population-size}
+   * @param cached true to complete the job right away with the stored result, if there is one
+   */
+  public record Request(Integer priority, Map<String, String> fitness, Map<String, String> ga,
+      Boolean cached) {
+  }
+
+  /**
+   * Statistics of an evolved generation.
+   *
+   * @param generation the generation
+   * @param best the best fitness of the population
+   * @param mean the mean fitness of the population
+   * @param worst the worst fitness of the population
+   * @param diversity the fraction of distinct genotypes in the population
+   * @param rate generations per second, measured since the previous generation
+   */
+  public record Progress(long generation, double best, double mean, double worst,
+      double diversity, double rate) {
+  }
+
+  /**
+   * A submitted job and its progress.
+   * <p>
+   * Statistics and improvements are published as they happen. Subscribers that cannot keep up
+   * only get the latest of each, so the evolution never waits for them.
+   */
+  public static final class Job {
+    private final String id;
+    private final Instant created = Instant.now();
+    private final PlotEncoding encoding;
+    private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
+    private final AtomicReference<Phenotype<IntegerGene, Double>> best = new AtomicReference<>();
+    private volatile long generation;
+    private volatile boolean cancelled;
+    private volatile String error;
+    private final BroadcastProcessor<Progress> progress = BroadcastProcessor.create();
+    private final BroadcastProcessor<Phenotype<IntegerGene, Double>> improvements =
+        BroadcastProcessor.create();
+    private long lastNanos = System.nanoTime();
+    private volatile long finishedNanos;
+
+    // scheduling state, only touched by the runner holding the job, and released once finished
+    private final int priority;
+    private final EvolutionLimit limit;
+    private final long sequence;
+    private final FitnessCoefficients coefficients;
+    private FitnessEvaluator evaluator;
+    private Archipelago archipelago;
+    private LocalSearch localSearch;
+    private Iterator<EvolutionResult<IntegerGene, Double>> evolution;
+    private EvolutionResult<IntegerGene, Double> last;
+    private double pass;
+
+    private Job(final String id, final PlotEncoding encoding, final int priority,
+        final EvolutionLimit limit, final long sequence, final FitnessCoefficients coefficients,
+        final FitnessEvaluator evaluator, final Archipelago archipelago,
+        final LocalSearch localSearch, final EvolutionStart<IntegerGene, Double> start) {
+      this.id = id;
+      this.encoding = encoding;
+      this.priority = priority;
+      this.limit = limit;
+      this.sequence = sequence;
+      this.coefficients = coefficients;
+      this.evaluator = evaluator;
+      this.archipelago = archipelago;
+      this.localSearch = localSearch;
+      this.evolution = archipelago.stream(start, () -> !evolving()).iterator();
+    }
+
+    private boolean evolving() {
+      return !cancelled && limit.reached().isEmpty();
+    }
+
+    private void accept(final EvolutionResult<IntegerGene, Double> result) {
+      final long now = System.nanoTime();
+      final var population = result.population();
+      final DoubleSummaryStatistics fitness = population.stream()
+          .mapToDouble(Phenotype::fitness)
+          .summaryStatistics();
+      final long distinct = population.stream().map(Phenotype::genotype).distinct().count();
+      generation = result.generation();
+      progress.onNext(new Progress(generation, fitness.getMax(), fitness.getAverage(),
+          fitness.getMin(), (double) distinct / Math.max(population.size(), 1),
+          1e9 / Math.max(now - lastNanos, 1)));
+      lastNanos = now;
+      last = result;
+
+      // only the job's thread updates the best individual
+      final var candidate = result.bestPhenotype();
+      final var previous = best.get();
+      if (previous == null || candidate.fitness() > previous.fitness()) {
+        best.set(candidate);
+        improvements.onNext(candidate);
+      }
+    }
+
+    private void finish(final State outcome) {
+      try {
+        state.set(outcome);
+      } finally {
+        progress.onComplete();
+        improvements.onComplete();
+        if (archipelago != null) {
+          archipelago.close();
+        }
+        if (evaluator != null) {
+          evaluator.close();
+        }
+        // the engine, populations, cache and lineage are only reachable from here
+        evaluator = null;
+        archipelago = null;
+        localSearch = null;
+        evolution = null;
+        last = null;
+        finishedNanos = System.nanoTime();
+      }
+    }
+
+    /**
+     * Returns the identifier of the job.
+     *
+     * @return the job id
+     */
+    public String id() {
+      return id;
+    }
+
+    /**
+     * Returns the share of the turns given to the job.
+     *
+     * @return the priority
+     */
+    public int priority() {
+      return priority;
+    }
+
+    /**
+     * Returns when the job was submitted.
+     *
+     * @return the submission instant
+     */
+    public Instant created() {
+      return created;
+    }
+
+    /**
+     * Returns the encoding of the job's genotypes.
+     *
+     * @return the plot encoding
+     */
+    public PlotEncoding encoding() {
+      return encoding;
+    }
+
+    /**
+     * Returns the current state of the job.
+     *
+     * @return the job state
+     */
+    public State state() {
+      return state.get();
+    }
+
+    /**
+     * Returns the last generation evolved so far.
+     *
+     * @return the generation, or 0 if none was evolved yet
+     */
+    public long generation() {
+      return generation;
+    }
+
+    /**
+     * Returns the best individual found so far.
+     *
+     * @return the best individual, if any generation was evolved
+     */
+    public Optional<Phenotype<IntegerGene, Double>> best() {
+      return Optional.ofNullable(best.get());
+    }
+
+    /**
+     * Returns the termination rule that completed the job.
+     *
+     * @return the rule, if the job completed by reaching one
+     */
+    public Optional<EvolutionLimit.Rule> termination() {
+      return limit.reached();
+    }
+
+    /**
+     * Returns the reason why the job failed.
+     *
+     * @return the error message, if the job failed
+     */
+    public Optional<String> error() {
+      return Optional.ofNullable(error);
+    }
+
+    /**
+     * Streams the statistics of every generation evolved from now on, until the job finishes.
+     *
+     * @return the statistics, keeping only the latest for slow subscribers
+     */
+    public Multi<Progress> progress() {
+      return progress.onOverflow().dropPreviousItems()
+          .emitOn(Infrastructure.getDefaultExecutor());
+    }
+
+    /**
+     * Streams the best individual found so far, followed by each better one until the job
+     * finishes.
+     *
+     * @return the improving individuals, keeping only the latest for slow subscribers
+     */
+    public Multi<Phenotype<IntegerGene, Double>> improvements() {
+      return Multi.createBy().concatenating().streams(
+              Multi.createFrom().optional(best()),
+              improvements.onOverflow().dropPreviousItems())
+          .emitOn(Infrastructure.getDefaultExecutor());
+    }
+  }
+
+  /**
+   * Lowest priority of a job.
+   */
+  public static final int MIN_PRIORITY = 1;
+  /**
+   * Highest priority of a job.
+   */
+  public static final int MAX_PRIORITY = 10;
+  /**
+   * Priority of jobs that do not request one.
+   */
+  public static final int DEFAULT_PRIORITY = 5;
+
+  private static final String FITNESS_PREFIX = "fitness.";
+  private static final String GA_PREFIX = "ga.";
+
+  private final Config config;
+  private final FitnessCache.Settings cacheSettings;
+  private final ExactSolver.Settings solverSettings;
+  private final PlotConstraint constraint;
+  private final ResultStore store;
+  private final EvolutionMetrics metrics;
+  private final int parallelism;
+  private final int slice;
+  private final int capacity;
+  private final long retentionNanos;
+  private final int retained;
+  private final ForkJoinPool pool;
+  private final ExecutorService runners;
+  private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+  // finished jobs still kept, in the order they finished
+  private final Queue<Job> finished = new ConcurrentLinkedQueue<>();
+  private final PriorityBlockingQueue<Job> ready = new PriorityBlockingQueue<>(16,
+      Comparator.comparingDouble((Job job) -> job.pass).thenComparingLong(job -> job.sequence));
+  private final AtomicInteger unfinished = new AtomicInteger();
+  private final AtomicLong sequence = new AtomicLong();
+  // service received by the last job that took a turn; new jobs start from it
+  private volatile double virtualTime;
+
+  Jobs(final Settings settings, final Config config, final FitnessCache.Settings cacheSettings,
+      final ExactSolver.Settings solverSettings, final PlotConstraint constraint,
+      final ResultStore store, final EvolutionMetrics metrics) {
+    this.config = config;
+    this.cacheSettings = cacheSettings;
+    this.solverSettings = solverSettings;
+    this.constraint = constraint;
+    this.store = store;
+    this.metrics = metrics;
+    this.parallelism = settings.parallelism() > 0
+        ? settings.parallelism()
+        : Runtime.getRuntime().availableProcessors();
+    this.slice = Math.max(settings.slice(), 1);
+    this.capacity = settings.capacity();
+    this.retentionNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(settings.retentionMillis(), 0));
+    this.retained = Math.max(settings.retained(), 0);
+    this.pool = new ForkJoinPool(parallelism);
+    this.runners = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("job-runner-", 0).factory());
+    final int concurrency = Math.max(settings.concurrency(), 1);
+    for (int i = 0; i < concurrency; i++) {
+      runners.execute(this::serve);
+    }
+    Log.info(LOG_FQCN, "Scheduling up to {0} jobs, {1} at a time in turns of {2} generations, "
+            + "on {3} workers",
+        arr(capacity, concurrency, slice, parallelism), null);
+  }
+
+  /**
+   * Starts a new job.
+   *
+   * @param request the settings of the job
+   * @return the started job
+   * @throws IllegalArgumentException if the settings are invalid
+   * @throws RejectedExecutionException if there are too many unfinished jobs
+   */
+  public Job submit(final Request request) {
+    evict();
+    final int priority = request.priority() == null ? DEFAULT_PRIORITY : request.priority();
+    if (priority < MIN_PRIORITY || priority > MAX_PRIORITY) {
+      throw new IllegalArgumentException("Invalid job priority: " + priority);
+    }
+    final GeneticProperties properties;
+    final FitnessCoefficients coefficients;
+    try {
+      final var source = new PropertiesConfigSource(
+          properties(request), "job", PropertiesConfigSource.ORDINAL);
+      final var jobConfig = new SmallRyeConfigBuilder()
+          .withMapping(GeneticProperties.class)
+          .withMapping(FitnessCoefficients.class)
+          .withSources(source)
+          .build();
+      properties = jobConfig.getConfigMapping(GeneticProperties.class);
+      coefficients = jobConfig.getConfigMapping(FitnessCoefficients.class);
+    } catch (final RuntimeException e) {
+      throw new IllegalArgumentException("Invalid job settings: " + e.getMessage(), e);
+    }
+
+    if (unfinished.incrementAndGet() > capacity) {
+      unfinished.decrementAndGet();
+      throw new RejectedExecutionException(
+          "Too many unfinished jobs; at most " + capacity + " are accepted");
+    }
+    final Job job;
+    try {
+      final var shape = Garden.of(properties);
+      // jobs on the configured garden share its tables instead of holding their own
+      final var garden = shape.equals(constraint.garden()) ? constraint.garden() : shape;
+      final var encoding = PlotEncoding.of(properties.encoding(), garden);
+      final var lineage = new Lineage(properties);
+      final var phenotype = new PlotPhenotype.Impl(coefficients, encoding,
+          new FitnessCache(cacheSettings), lineage);
+      final var evaluator = new FitnessEvaluator(phenotype, properties, pool, parallelism,
+          metrics);
+      final var configuration = new AppConfiguration(properties);
+      final var localSearch = new LocalSearch(properties, coefficients, encoding, evaluator,
+          metrics);
+      final var archipelago = new Archipelago(configuration.engine(phenotype, encoding, evaluator,
+          constraint.of(garden), configuration.selector(), lineage), properties, localSearch);
+      job = new Job(UUID.randomUUID().toString(), encoding, priority,
+          EvolutionLimit.of(properties),
+          sequence.getAndIncrement(), coefficients, evaluator, archipelago, localSearch,
+          store.start(coefficients, encoding));
+    } catch (final RuntimeException e) {
+      unfinished.decrementAndGet();
+      throw new IllegalArgumentException("Invalid job settings: " + e.getMessage(), e);
+    }
+
+    // the stored best is served right away, and the job only publishes better ones
+    final var stored = store.best(coefficients, job.encoding);
+    stored.ifPresent(job.best::set);
+    job.pass = virtualTime;
+    jobs.put(job.id, job);
+    if (stored.isPresent() && Boolean.TRUE.equals(request.cached())) {
+      Log.info(LOG_FQCN, "Job {0} served from the stored result", arr(job.id), null);
+      finish(job, State.COMPLETED);
+      return job;
+    }
+    Log.info(LOG_FQCN, "Starting job {0} with priority {1}", arr(job.id, priority), null);
+    ready.add(job);
+    return job;
+  }
+
+  private Map<String, String> properties(final Request request) {
+    final Map<String, String> properties = new HashMap<>();
+    // start from the application's settings
+    for (final String name : config.getPropertyNames()) {
+      if (name.startsWith(FITNESS_PREFIX) || name.startsWith(GA_PREFIX)) {
+        config.getOptionalValue(name, String.class)
+            .ifPresent(value -> properties.put(name, value));
+      }
+    }
+    if (request.fitness() != null) {
+      request.fitness().forEach((name, value) -> properties.put(FITNESS_PREFIX + name, value));
+    }
+    if (request.ga() != null) {
+      request.ga().forEach((name, value) -> properties.put(GA_PREFIX + name, value));
+    }
+    return properties;
+  }
+
+  /**
+   * Hands out turns to the ready jobs until the scheduler is closed.
+   */
+  private void serve() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        final Job job = ready.take();
+        virtualTime = job.pass;
+        if (turn(job)) {
+          ready.add(job);
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Evolves a job for a turn.
+   *
+   * @param job the job to evolve
+   * @return true if the job has to evolve further
+   */
+  private boolean turn(final Job job) {
+    try {
+      int generations = 0;
+      while (generations < slice && job.evolving()) {
+        final var result = job.evolution.next();
+        metrics.record(result);
+        job.accept(result);
+        job.limit.test(result);
+        generations++;
+      }
+      if (job.evolving()) {
+        job.pass += (double) generations / job.priority;
+        return true;
+      }
+      if (job.limit.reached().isPresent()) {
+        // completed evolutions get their elite refined, cancelled ones are left as they are
+        if (job.localSearch.enabled()) {
+          job.accept(job.localSearch.refine(job.last));
+        }
+        finish(job, State.COMPLETED);
+      } else {
+        finish(job, State.CANCELLED);
+      }
+    } catch (final RuntimeException e) {
+      job.error = String.valueOf(e.getMessage());
+      Log.warn(LOG_FQCN, "Job {0} failed", arr(job.id), e);
+      finish(job, State.FAILED);
+    }
+    return false;
+  }
+
+  private void finish(final Job job, final State state) {
+    unfinished.decrementAndGet();
+    if (job.last != null && state != State.FAILED) {
+      // the best individual may have been lost by the last population
+      store.store(job.coefficients, job.encoding, job.last.generation(),
+          job.last.population().append(ISeq.of(job.best.get())));
+    }
+    job.finish(state);
+    Log.info(LOG_FQCN, "Job {0} finished as {1} at generation {2}{3}",
+        arr(job.id, state, job.generation, job.limit.reached()
+            .map(rule -> " by rule " + rule)
+            .orElse("")), null);
+    finished.add(job);
+    evict();
+  }
+
+  /**
+   * Forgets the finished jobs past their retention time, and the oldest ones beyond the retained
+   * count. Their best results are kept by the {@link ResultStore}.
+   */
+  private void evict() {
+    final long now = System.nanoTime();
+    Job eldest;
+    while ((eldest = finished.peek()) != null
+        && (now - eldest.finishedNanos >= retentionNanos || finished.size() > retained)) {
+      if (finished.remove(eldest)) {
+        jobs.remove(eldest.id);
+        Log.debug(LOG_FQCN, "Forgot finished job {0}", arr(eldest.id), null);
+      }
+    }
+  }
+
+  /**
+   * Returns a job.
+   *
+   * @param id the job id
+   * @return the job, if it exists and was not forgotten
+   */
+  public Optional<Job> get(final String id) {
+    evict();
+    return Optional.ofNullable(jobs.get(id));
+  }
+
+  /**
+   * Returns the submitted jobs that were not forgotten.
+   *
+   * @return the jobs
+   */
+  public Collection<Job> list() {
+    evict();
+    return jobs.values();
+  }
+
+  /**
+   * Requests a job to stop. A job waiting for its turn stops right away; a job evolving stops
+   * after the generation being evolved.
+   *
+   * @param id the job id
+   * @return the job, if it exists
+   */
+  public Optional<Job> cancel(final String id) {
+    final Optional<Job> job = get(id);
+    job.ifPresent(j -> {
+      j.cancelled = true;
+      if (ready.remove(j)) {
+        finish(j, State.CANCELLED);
+      }
+    });
+    return job;
+  }
+
+  /**
+   * Solves a window of the best plot of a job exactly, with the job's fitness function. The
+   * search runs on the workers shared by all jobs.
+   *
+   * @param id the job id
+   * @param window the window to solve
+   * @param crops the ordinals of the single-tile crops allowed in the window
+   * @return the solution, if the job exists
+   * @throws IllegalArgumentException if the job has no plot yet, or the window or the crops are
+   * invalid
+   * @see ExactSolver
+   */
+  public Optional<ExactSolver.Solution> solve(final String id, final ExactSolver.Window window,
+      final int[] crops) {
+    return get(id).map(job -> {
+      final var best = job.best().orElseThrow(() -> new IllegalArgumentException(
+          "Job " + id + " has not found any plot yet"));
+      final int[] plot = job.encoding.decode(best.genotype()).chromosome()
+          .as(IntegerChromosome.class).toArray();
+      return new ExactSolver(job.coefficients, solverSettings, pool, job.encoding.garden())
+          .solve(plot, window, crops);
+    });
+  }
+
+  @PreDestroy
+  @Override
+  public void close() {
+    jobs.values().forEach(job -> job.cancelled = true);
+    // runners finish their turn, and are interrupted while waiting for the next one
+    runners.shutdownNow();
+    runners.close();
+    final List<Job> pending = new ArrayList<>();
+    ready.drainTo(pending);
+    pending.forEach(job -> finish(job, State.CANCELLED));
+    pool.close();
+  }
+}
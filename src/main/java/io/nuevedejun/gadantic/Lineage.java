@@ -0,0 +1,142 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerGene;
+import io.nuevedejun.gadantic.PlotDecoder.Snapshot;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Links mutated offspring to the decoded state of their parents, so that their fitness can be
+ * evaluated incrementally.
+ * <p>
+ * Genotypes are compared by identity, since hashing their genes would cost as much as part of the
+ * evaluation it is meant to save. Both registries are bounded, keeping the most recent entries;
+ * an individual whose parent was forgotten is simply evaluated in full.
+ * <p>
+ * The registries are shared by all evaluating threads and all islands, so they are concurrent
+ * maps without a global lock. Entries are queued in insertion order, and the oldest ones are
+ * dropped once more than the capacity were queued.
+ */
+@ApplicationScoped
+public class Lineage {
+
+  private record Key(Genotype<IntegerGene> genotype) {
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof Key(final Genotype<IntegerGene> other) && genotype == other;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(genotype);
+    }
+  }
+
+  /**
+   * Concurrent map forgetting its oldest entries.
+   */
+  private static final class Registry {
+    private record Entry(Key key, Snapshot snapshot) {
+    }
+
+    private final Map<Key, Snapshot> map = new ConcurrentHashMap<>();
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int capacity;
+
+    private Registry(final int capacity) {
+      this.capacity = capacity;
+    }
+
+    private Snapshot get(final Key key) {
+      return map.get(key);
+    }
+
+    private Snapshot remove(final Key key) {
+      // the queued entry is left behind, and dropping it later removes nothing
+      return map.remove(key);
+    }
+
+    private void put(final Key key, final Snapshot snapshot) {
+      map.put(key, snapshot);
+      order.add(new Entry(key, snapshot));
+      if (queued.incrementAndGet() > capacity) {
+        final Entry eldest = order.poll();
+        if (eldest != null) {
+          queued.decrementAndGet();
+          // a key registered again since then keeps its newer snapshot
+          map.remove(eldest.key(), eldest.snapshot());
+        }
+      }
+    }
+  }
+
+  private final int limit;
+  private final Registry snapshots;
+  private final Registry parents;
+
+  Lineage(final GeneticProperties properties) {
+    this.limit = properties.evaluation().incrementalLimit();
+    // enough room for every individual of every island in the current and previous generation
+    final int capacity = 2 * properties.populationSize() * Math.max(properties.islands().count(), 1);
+    this.snapshots = new Registry(capacity);
+    this.parents = new Registry(capacity);
+  }
+
+  /**
+   * Checks if incremental evaluation is enabled.
+   *
+   * @return true if lineage is tracked
+   */
+  public boolean enabled() {
+    return limit > 0;
+  }
+
+  /**
+   * Returns the maximum number of changed tiles for which an offspring is evaluated incrementally.
+   *
+   * @return the incremental limit
+   */
+  public int limit() {
+    return limit;
+  }
+
+  /**
+   * Registers that the child was derived from the parent.
+   *
+   * @param parent the original genotype
+   * @param child the derived genotype
+   */
+  public void inherit(final Genotype<IntegerGene> parent, final Genotype<IntegerGene> child) {
+    final Snapshot snapshot = snapshots.get(new Key(parent));
+    if (snapshot != null) {
+      parents.put(new Key(child), snapshot);
+    }
+  }
+
+  /**
+   * Returns and forgets the decoded state of the parent of the given genotype.
+   *
+   * @param child the derived genotype
+   * @return the state of its parent, or null if unknown
+   */
+  public Snapshot parentOf(final Genotype<IntegerGene> child) {
+    return parents.remove(new Key(child));
+  }
+
+  /**
+   * Keeps the decoded state of an evaluated genotype, for when it becomes a parent.
+   *
+   * @param genotype the evaluated genotype
+   * @param snapshot its decoded state
+   */
+  public void record(final Genotype<IntegerGene> genotype, final Snapshot snapshot) {
+    snapshots.put(new Key(genotype), snapshot);
+  }
+}
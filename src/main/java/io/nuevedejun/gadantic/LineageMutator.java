@@ -0,0 +1,37 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerGene;
+import io.jenetics.Mutator;
+import io.jenetics.MutatorResult;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Point mutator that registers each mutated offspring in the {@link Lineage}, so that it can be
+ * evaluated incrementally from its parent.
+ */
+public class LineageMutator extends Mutator<IntegerGene, Double> {
+  private final Lineage lineage;
+
+  /**
+   * Creates a lineage-tracking mutator with the specified probability.
+   *
+   * @param probability the probability of mutation
+   * @param lineage the registry of parents
+   */
+  public LineageMutator(final double probability, final Lineage lineage) {
+    super(probability);
+    this.lineage = lineage;
+  }
+
+  @Override
+  protected MutatorResult<Genotype<IntegerGene>> mutate(
+      final Genotype<IntegerGene> genotype, final double p, final RandomGenerator random) {
+    final var result = super.mutate(genotype, p, random);
+    if (result.mutations() > 0 && lineage.enabled()) {
+      lineage.inherit(genotype, result.result());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,313 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.RandomRegistry;
+import io.nuevedejun.gadantic.PlotDecoder.Kernel;
+import io.nuevedejun.gadantic.PlotDecoder.Snapshot;
+import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
+import static io.nuevedejun.gadantic.Iterables.arr;
+
+/**
+ * Memetic stage that refines the best individuals of a population with a local search.
+ * <p>
+ * Each of the {@link GeneticProperties.LocalSearch#elite()} best distinct individuals goes
+ * through {@link GeneticProperties.LocalSearch#steps()} random moves on its decoded plot: changing
+ * the crop of a single tile, swapping two crops of the same size, or moving a 2x2 crop by one
+ * tile. Every move keeps the plot valid, and is evaluated incrementally from the current plot by
+ * the {@link Kernel}. Moves that do not lower the fitness are accepted, and so are worse moves
+ * with the probability of simulated annealing while the temperature is above 0. The best plot
+ * visited replaces the individual if it is fitter.
+ * <p>
+ * The elite is refined in parallel on the workers of the {@link FitnessEvaluator}, after the
+ * evolution and, if {@link GeneticProperties.LocalSearch#interval()} is set, every so many
+ * generations during it.
+ */
+@ApplicationScoped
+public class LocalSearch {
+  private static final int[] SIZE = new int[Crop.len()];
+  private static final int[] SINGLE_TILE_CROPS = Arrays.stream(Crop.values())
+      .filter(crop -> crop.size == 1)
+      .mapToInt(Crop::ordinal)
+      .toArray();
+  /** Offsets of the tile a 2x2 crop moves to: north, south, west and east. */
+  private static final int[][] DIRECTIONS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+
+  static {
+    for (int i = 0; i < Crop.len(); i++) {
+      SIZE[i] = Crop.at(i).size;
+    }
+  }
+
+  private final FitnessCoefficients coefficients;
+  private final double normalize;
+  private final PlotEncoding encoding;
+  /** Clears covered tiles of refined plots, so that they are fixed points of the encoding. */
+  private final PlotEncoding.Greedy canonical;
+  private final Garden garden;
+  private final Executor executor;
+  private final EvolutionMetrics metrics;
+  private final int elite;
+  private final int steps;
+  private final int interval;
+  private final double temperature;
+  private final int limit;
+
+  LocalSearch(final GeneticProperties properties, final FitnessCoefficients coefficients,
+      final PlotEncoding encoding, final FitnessEvaluator evaluator,
+      final EvolutionMetrics metrics) {
+    this.coefficients = coefficients;
+    this.normalize = PlotPhenotype.Impl.normalize(coefficients);
+    this.encoding = encoding;
+    this.garden = encoding.garden();
+    this.canonical = (PlotEncoding.Greedy) PlotEncoding.of(PlotEncoding.Kind.GREEDY, garden);
+    this.executor = evaluator.executor();
+    this.metrics = metrics;
+    final GeneticProperties.LocalSearch settings = properties.localSearch();
+    this.elite = Math.max(settings.elite(), 0);
+    this.steps = Math.max(settings.steps(), 0);
+    this.interval = Math.max(settings.interval(), 0);
+    this.temperature = Math.max(settings.temperature(), 0);
+    this.limit = properties.evaluation().incrementalLimit();
+    if (enabled()) {
+      Log.info(LOG_FQCN, "Refining the best {0} individuals with {1} local search steps",
+          arr(elite, steps), null);
+    }
+  }
+
+  /**
+   * Checks whether individuals are refined at all.
+   *
+   * @return true if the local search is enabled
+   */
+  public boolean enabled() {
+    return elite > 0 && steps > 0;
+  }
+
+  /**
+   * Refines the elite of a generation if it is due for an in-loop refinement.
+   *
+   * @param result the evolved generation
+   * @return the generation with its elite refined, or the given one
+   */
+  public EvolutionResult<IntegerGene, Double> during(
+      final EvolutionResult<IntegerGene, Double> result) {
+    return interval > 0 && result.generation() % interval == 0 ? refine(result) : result;
+  }
+
+  /**
+   * Refines the elite of a generation.
+   *
+   * @param result the evolved generation
+   * @return the generation with its elite refined
+   */
+  public EvolutionResult<IntegerGene, Double> refine(
+      final EvolutionResult<IntegerGene, Double> result) {
+    if (!enabled()) {
+      return result;
+    }
+    final var population = result.population();
+    // the best individual of each distinct genotype, best first
+    final Set<Genotype<IntegerGene>> seen = new HashSet<>();
+    final List<Integer> chosen = new ArrayList<>();
+    IntStream.range(0, population.size()).boxed()
+        .sorted(Comparator.comparing((Integer i) -> population.get(i).fitness()).reversed())
+        .filter(i -> seen.add(population.get(i).genotype()))
+        .limit(elite)
+        .forEach(chosen::add);
+
+    final List<CompletableFuture<Phenotype<IntegerGene, Double>>> futures = chosen.stream()
+        .map(i -> CompletableFuture.supplyAsync(
+            () -> refine(population.get(i), result.generation()), executor))
+        .toList();
+    final MSeq<Phenotype<IntegerGene, Double>> refined = MSeq.of(population);
+    for (int i = 0; i < chosen.size(); i++) {
+      refined.set(chosen.get(i), futures.get(i).join());
+    }
+    metrics.evaluated(chosen.size() * steps);
+    return EvolutionResult.of(result.optimize(), refined.toISeq(), result.generation(),
+        result.durations(), result.killCount(), result.invalidCount(), result.alterCount());
+  }
+
+  /**
+   * Runs the local search from an individual.
+   *
+   * @param individual the evaluated individual
+   * @param generation the generation of the refined individual
+   * @return a fitter individual, or the given one
+   */
+  Phenotype<IntegerGene, Double> refine(final Phenotype<IntegerGene, Double> individual,
+      final long generation) {
+    final RandomGenerator random = RandomRegistry.random();
+    final Kernel kernel = new Kernel(garden);
+    final var chromosome = encoding.decode(individual.genotype()).chromosome()
+        .as(IntegerChromosome.class);
+    int[] current = chromosome.toArray();
+    double fitness = score(kernel.evaluate(current));
+    Snapshot snapshot = kernel.snapshot();
+    int[] best = current;
+    double bestFitness = fitness;
+
+    final int[] owner = new int[garden.tiles()];
+    for (int step = 0; step < steps; step++) {
+      final int[] candidate = current.clone();
+      owners(candidate, owner);
+      if (!move(candidate, owner, random)) {
+        continue;
+      }
+      final double value = score(kernel.evaluate(snapshot, candidate, limit));
+      final double heat = temperature * (steps - step) / steps;
+      if (value >= fitness
+          || heat > 0 && random.nextDouble() < Math.exp((value - fitness) / heat)) {
+        current = candidate;
+        fitness = value;
+        snapshot = kernel.snapshot();
+        if (value > bestFitness) {
+          best = candidate;
+          bestFitness = value;
+        }
+      }
+    }
+    if (bestFitness <= individual.fitness()) {
+      return individual;
+    }
+    // covered tiles are cleared the way the greedy encoding does, so the plot decodes to itself
+    final int[] plot = canonical.place(best.clone());
+    return Phenotype.of(Genotype.of(chromosome.map(genes -> plot)), generation, bestFitness);
+  }
+
+  private double score(final Kernel kernel) {
+    return PlotPhenotype.Impl.score(coefficients, normalize, kernel);
+  }
+
+  /**
+   * Resolves the origin tile of the crop covering each tile, like the {@link Kernel} does.
+   */
+  private void owners(final int[] plot, final int[] owner) {
+    Arrays.fill(owner, -1);
+    for (int pos = 0; pos < owner.length; pos++) {
+      if (owner[pos] < 0 && garden.plantable(pos)) {
+        final int size = SIZE[plot[pos]];
+        for (int dy = 0; dy < size; dy++) {
+          for (int dx = 0; dx < size; dx++) {
+            owner[pos + dx + dy * garden.width()] = pos;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies a random move to a valid plot, keeping it valid.
+   *
+   * @return false if the chosen move does not apply to the plot
+   */
+  private boolean move(final int[] plot, final int[] owner, final RandomGenerator random) {
+    return switch (random.nextInt(3)) {
+      case 0 -> changeTile(plot, owner, random);
+      case 1 -> swapCrops(plot, owner, random);
+      default -> moveBlock(plot, owner, random);
+    };
+  }
+
+  private boolean changeTile(final int[] plot, final int[] owner,
+      final RandomGenerator random) {
+    final int tile = random.nextInt(owner.length);
+    if (owner[tile] != tile || SIZE[plot[tile]] != 1) {
+      return false;
+    }
+    final int crop = SINGLE_TILE_CROPS[random.nextInt(SINGLE_TILE_CROPS.length)];
+    if (crop == plot[tile]) {
+      return false;
+    }
+    plot[tile] = crop;
+    return true;
+  }
+
+  private boolean swapCrops(final int[] plot, final int[] owner,
+      final RandomGenerator random) {
+    final int a = owner[random.nextInt(owner.length)];
+    final int b = owner[random.nextInt(owner.length)];
+    if (a < 0 || b < 0 || SIZE[plot[a]] != SIZE[plot[b]] || plot[a] == plot[b]) {
+      return false;
+    }
+    final int crop = plot[a];
+    plot[a] = plot[b];
+    plot[b] = crop;
+    return true;
+  }
+
+  /**
+   * Moves a 2x2 crop by one tile over two single-tile crops, which take the two tiles the crop
+   * leaves.
+   */
+  private boolean moveBlock(final int[] plot, final int[] owner,
+      final RandomGenerator random) {
+    final int origin = owner[random.nextInt(owner.length)];
+    if (origin < 0 || SIZE[plot[origin]] != 2) {
+      return false;
+    }
+    final int crop = plot[origin];
+    final int width = garden.width();
+    final int[] direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+    final int x = origin % width;
+    final int y = origin / width;
+    final int nx = x + direction[0];
+    final int ny = y + direction[1];
+    if (nx < 0 || ny < 0 || nx + 2 > width || ny + 2 > garden.height()) {
+      return false;
+    }
+    // the tiles the crop enters and the ones it leaves, both in row-major order
+    final int[] entered = new int[2];
+    final int[] left = new int[2];
+    int e = 0;
+    int l = 0;
+    for (int ty = Math.min(y, ny); ty < Math.max(y, ny) + 2; ty++) {
+      for (int tx = Math.min(x, nx); tx < Math.max(x, nx) + 2; tx++) {
+        final boolean before = tx >= x && tx < x + 2 && ty >= y && ty < y + 2;
+        final boolean after = tx >= nx && tx < nx + 2 && ty >= ny && ty < ny + 2;
+        final int tile = tx + ty * width;
+        if (after && !before) {
+          // masked tiles have no owner, so the crop never enters them
+          if (owner[tile] != tile || SIZE[plot[tile]] != 1) {
+            return false;
+          }
+          entered[e++] = tile;
+        } else if (before && !after) {
+          left[l++] = tile;
+        }
+      }
+    }
+    for (int i = 0; i < 2; i++) {
+      plot[left[i]] = plot[entered[i]];
+    }
+    final int destination = nx + ny * width;
+    for (int dy = 0; dy < 2; dy++) {
+      for (int dx = 0; dx < 2; dx++) {
+        plot[destination + dx + dy * width] = 0;
+      }
+    }
+    plot[destination] = crop;
+    return true;
+  }
+}
@@ -0,0 +1,242 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerGene;
+import io.jenetics.Mutator;
+import io.jenetics.Phenotype;
+import io.jenetics.ShuffleMutator;
+import io.jenetics.TournamentSelector;
+import io.jenetics.UniformCrossover;
+import io.jenetics.engine.Constraint;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStream;
+import io.jenetics.engine.Limits;
+import io.jenetics.ext.moea.MOEA;
+import io.jenetics.ext.moea.NSGA2Selector;
+import io.jenetics.ext.moea.Vec;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.IntRange;
+import io.nuevedejun.gadantic.PlotDecoder.Kernel;
+import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
+import static io.nuevedejun.gadantic.Iterables.arr;
+
+/**
+ * Multi-objective evolution that keeps the Pareto front of several plot statistics, instead of
+ * reducing them to the single weighted fitness of {@link PlotPhenotype.Impl}.
+ * <p>
+ * Plots are scored by a vector of the configured {@link Objective objectives}, each normalized
+ * like the matching term of the weighted fitness. Survivors are selected by NSGA-II, which ranks
+ * individuals by non-dominated front and then by crowding distance. The best front of every
+ * generation is merged into a running front as the generations stream by, so the front of the
+ * whole run is available when it stops, trimmed by crowding to
+ * {@link GeneticProperties.Pareto#frontSize()} plots.
+ * <p>
+ * Any set of {@link FitnessCoefficients} then picks its trade-off from the front: each plot gets
+ * the weighted fitness the coefficients would have given it, without evolving again.
+ */
+@ApplicationScoped
+public class ParetoSearch {
+
+  /**
+   * Statistics of a plot that can be maximized together, normalized to [0, 1].
+   */
+  public enum Objective {
+    /** Fraction of the plantable tiles with water retention. */
+    WATER(plot -> (double) plot.water() / plot.garden().area()),
+    /** Fraction of the plantable tiles with weed prevention. */
+    WEED(plot -> (double) plot.weed() / plot.garden().area()),
+    /** Fraction of the plantable tiles with quality boost. */
+    QUALITY(plot -> (double) plot.quality() / plot.garden().area()),
+    /** Fraction of the plantable tiles with harvest increase. */
+    HARVEST(plot -> (double) plot.harvest() / plot.garden().area()),
+    /** Fraction of the crop types planted. */
+    UNIQUE(plot -> (double) plot.unique() / Crop.len()),
+    /** Fraction of the available buffs applied. */
+    EFFICIENCY(Kernel::efficiency),
+    /** Left-right mirror symmetry. */
+    HORIZONTAL_SYMMETRY(Kernel::horizontalSymmetry),
+    /** Top-bottom mirror symmetry. */
+    VERTICAL_SYMMETRY(Kernel::verticalSymmetry),
+    /** 180° rotational symmetry. */
+    ROTATIONAL_SYMMETRY(Kernel::rotationalSymmetry);
+
+    private final ToDoubleFunction<Kernel> value;
+
+    Objective(final ToDoubleFunction<Kernel> value) {
+      this.value = value;
+    }
+
+    /**
+     * Returns the value of the objective for the plot last evaluated by a kernel.
+     *
+     * @param plot the kernel holding the statistics of the plot
+     * @return the objective value
+     */
+    public double of(final Kernel plot) {
+      return value.applyAsDouble(plot);
+    }
+  }
+
+  private final GeneticProperties properties;
+  private final FitnessCoefficients coefficients;
+  private final double normalize;
+  private final PlotEncoding encoding;
+  private final PlotConstraint constraint;
+  private final Executor executor;
+  private final Objective[] objectives;
+  private final int frontSize;
+
+  // kernels keep scratch buffers, so each evaluating thread gets its own
+  private final ThreadLocal<Kernel> kernels;
+
+  @Inject
+  ParetoSearch(final GeneticProperties properties, final FitnessCoefficients coefficients,
+      final PlotEncoding encoding, final PlotConstraint constraint,
+      final FitnessEvaluator evaluator) {
+    this(properties, coefficients, encoding, constraint, evaluator.executor());
+  }
+
+  ParetoSearch(final GeneticProperties properties, final FitnessCoefficients coefficients,
+      final PlotEncoding encoding, final PlotConstraint constraint, final Executor executor) {
+    this.properties = properties;
+    this.coefficients = coefficients;
+    this.normalize = PlotPhenotype.Impl.normalize(coefficients);
+    this.encoding = encoding;
+    this.constraint = constraint.of(encoding.garden());
+    this.executor = executor;
+    this.objectives = properties.pareto().objectives().toArray(Objective[]::new);
+    this.frontSize = Math.max(properties.pareto().frontSize(), 1);
+    this.kernels = ThreadLocal.withInitial(() -> new Kernel(encoding.garden()));
+  }
+
+  /**
+   * Checks whether the evolution is multi-objective.
+   *
+   * @return true if the Pareto front is evolved instead of the weighted fitness
+   */
+  public boolean enabled() {
+    return properties.pareto().enabled();
+  }
+
+  /**
+   * Evolves the Pareto front until the generation or time limit is reached, or until stopped.
+   *
+   * @param stopped checked before every generation, true to stop evolving
+   * @return the plots of the front with their weighted fitness, best first
+   */
+  public ISeq<Phenotype<IntegerGene, Double>> evolve(final BooleanSupplier stopped) {
+    Log.info(LOG_FQCN, "Evolving the Pareto front of {0}, trimmed to {1} plots",
+        arr(List.of(objectives), frontSize), null);
+    EvolutionStream<IntegerGene, Vec<double[]>> evolution = engine().stream()
+        .limit(result -> !stopped.getAsBoolean());
+    if (properties.termination().timeLimitMillis() > 0) {
+      evolution = evolution.limit(Limits.byExecutionTime(
+          Duration.ofMillis(properties.termination().timeLimitMillis())));
+    }
+    final Stream<EvolutionResult<IntegerGene, Vec<double[]>>> stream = properties.generations() >= 0
+        ? evolution.limit(properties.generations())
+        : evolution;
+    final ISeq<Phenotype<IntegerGene, Vec<double[]>>> front = stream
+        .collect(MOEA.toParetoSet(new IntRange(frontSize, 2 * frontSize)));
+    final ISeq<Phenotype<IntegerGene, Double>> weighed = weigh(front);
+    Log.info(LOG_FQCN, "Found a Pareto front of {0} plots, best first by weighted fitness\n{1}",
+        arr(front.size(), table(weighed)), null);
+    return weighed;
+  }
+
+  private Object table(final ISeq<Phenotype<IntegerGene, Double>> front) {
+    final var sb = new StringBuilder("Fitness");
+    for (final Objective objective : objectives) {
+      sb.append(" | ").append(objective);
+    }
+    for (final var individual : front) {
+      sb.append('\n').append(String.format("%2.5f", individual.fitness()));
+      final double[] values = objectives(individual.genotype()).data();
+      for (int i = 0; i < values.length; i++) {
+        sb.append(" | ").append(String.format("%-" + objectives[i].name().length() + ".3f",
+            values[i]));
+      }
+    }
+    return sb;
+  }
+
+  /**
+   * Gives each plot of a front the weighted fitness of the configured coefficients.
+   *
+   * @param front the plots of the front
+   * @return the plots with their weighted fitness, best first
+   */
+  ISeq<Phenotype<IntegerGene, Double>> weigh(
+      final ISeq<Phenotype<IntegerGene, Vec<double[]>>> front) {
+    final Kernel kernel = kernels.get();
+    return front.stream()
+        .map(individual -> {
+          kernel.evaluate(encoding.decode(individual.genotype()));
+          return Phenotype.of(individual.genotype(), individual.generation(),
+              PlotPhenotype.Impl.score(coefficients, normalize, kernel));
+        })
+        .sorted(Comparator.comparing(Phenotype<IntegerGene, Double>::fitness).reversed())
+        .collect(ISeq.toISeq());
+  }
+
+  /**
+   * Returns the objective values of a plot.
+   *
+   * @param genotype the genotype of the plot
+   * @return the objectives, in the configured order
+   */
+  Vec<double[]> objectives(final Genotype<IntegerGene> genotype) {
+    final Kernel plot = kernels.get().evaluate(encoding.decode(genotype));
+    final double[] values = new double[objectives.length];
+    for (int i = 0; i < objectives.length; i++) {
+      values[i] = objectives[i].of(plot);
+    }
+    return Vec.of(values);
+  }
+
+  private Engine<IntegerGene, Vec<double[]>> engine() {
+    final Engine.Builder<IntegerGene, Vec<double[]>> builder;
+    if (encoding.repairs()) {
+      // the plot constraint only looks at the genotypes, whatever the fitness type
+      final Constraint<IntegerGene, Vec<double[]>> repair = Constraint.of(
+          individual -> constraint.test(Phenotype.of(individual.genotype(),
+              individual.generation())),
+          (individual, generation) -> Phenotype.of(constraint.repair(
+              Phenotype.of(individual.genotype(), individual.generation()), generation)
+              .genotype(), generation));
+      builder = Engine.builder(this::objectives, constraint.constrain(encoding.encoding()))
+          .constraint(repair);
+    } else {
+      builder = Engine.builder(this::objectives, encoding.encoding());
+    }
+    return builder
+        .executor(executor)
+        .populationSize(properties.populationSize())
+        .offspringFraction(properties.offspringFraction())
+        .survivorsSelector(NSGA2Selector.ofVec())
+        .offspringSelector(new TournamentSelector<>(properties.tournamentSize()))
+        .alterers(
+            new ShuffleMutator<>(properties.shuffleProbability()),
+            new UniformCrossover<>(
+                properties.crossoverProbability(),
+                properties.swapProbability()),
+            new Mutator<>(properties.mutationProbability()),
+            new ReplacementMutator<>(properties.replacementProbability()))
+        .build();
+  }
+}
@@ -31,17 +31,18 @@
  * @param horizontalSymmetry horizontal symmetry score [0, 1]
  * @param verticalSymmetry vertical symmetry score [0, 1]
  * @param rotationalSymmetry rotational symmetry score [0, 1]
- * @param layoutUrl URL to visualize layout in garden planner
+ * @param layoutUrl URL to visualize layout in garden planner, or null if the garden planner
+ *     cannot show the garden
+ * @param garden shape of the plot
  */
 public record Plot(
     Set<RichCrop> crops,
     int water, int weed, int quality, int harvest, int unique, double efficiency,
     double horizontalSymmetry, double verticalSymmetry, double rotationalSymmetry,
-    String layoutUrl) {
+    String layoutUrl, Garden garden) {
 
   private static final int CELL_WIDTH = 11;
-  private static final int LINE_LEN = 9 * CELL_WIDTH + 2;
-  private static final int LINES = 9 * 2 + 1;
+  private static final char MASKED = '·';
 
   private static final String HAS_WATER = "♠";
   private static final String HAS_WEED = "☙";
@@ -83,20 +84,30 @@ private static Border from(final char c) {
    * @return formatted string showing the plot layout
    */
   public String tableString() {
+    final int lineLen = garden.width() * CELL_WIDTH + 2;
+    final int lines = garden.height() * 2 + 1;
     final StringBuilder sb = new StringBuilder();
 
-    for (int i = 0; i < LINES; i++) {
+    for (int i = 0; i < lines; i++) {
       // reserve space for the table
-      sb.repeat(Border.BLANK.character, LINE_LEN - 1).append('\n');
+      sb.repeat(Border.BLANK.character, lineLen - 1).append('\n');
     }
     sb.deleteCharAt(sb.length() - 1);
 
+    for (int tile = 0; tile < garden.tiles(); tile++) {
+      if (!garden.plantable(tile)) {
+        final int start = tile % garden.width() * CELL_WIDTH
+            + 2 * (tile / garden.width()) * lineLen;
+        drawCell(sb, start, 1, lineLen);
+        replace(sb, start + lineLen + 1, String.valueOf(MASKED).repeat(CELL_WIDTH - 1));
+      }
+    }
     for (final var annotated : crops) {
       Log.trace(LOG_FQCN, "Drawing cell of {0}", arr(annotated), null);
 
-      final int start = annotated.x * CELL_WIDTH + 2 * annotated.y * LINE_LEN;
+      final int start = annotated.x * CELL_WIDTH + 2 * annotated.y * lineLen;
       final Crop crop = annotated.crop;
-      drawCell(sb, start, crop.size);
+      drawCell(sb, start, crop.size, lineLen);
 
       final String name = crop.name();
       final String badges = (annotated.has(WATER) ? HAS_WATER : "")
@@ -106,12 +117,12 @@ public String tableString() {
       final int desired = crop.size * CELL_WIDTH - 1 - badges.length();
       final String format = "%-" + desired + "." + desired + "s%s";
       final String text = String.format(format, name, badges);
-      replace(sb, start + LINE_LEN + 1, text);
+      replace(sb, start + lineLen + 1, text);
     }
     // draw left border
-    drawVertical(sb, 2 * LINE_LEN - 2, LINES - 2);
+    drawVertical(sb, 2 * lineLen - 2, lines - 2, lineLen);
     // draw lower border
-    drawHorizontal(sb, 1 + (LINES - 1) * LINE_LEN, LINE_LEN - 3);
+    drawHorizontal(sb, 1 + (lines - 1) * lineLen, lineLen - 3);
     return sb.toString();
   }
 
@@ -119,15 +130,16 @@ private void replace(final StringBuilder sb, final int start, final String str)
     sb.replace(start, start + str.length(), str);
   }
 
-  private void drawCell(final StringBuilder sb, final int pos, final int size) {
+  private void drawCell(final StringBuilder sb, final int pos, final int size,
+      final int lineLen) {
     final int cellWidth = size * CELL_WIDTH;
-    final int offset = 2 * size * LINE_LEN;
+    final int offset = 2 * size * lineLen;
     drawUpperLeft(sb, pos);
     drawUpperRight(sb, pos + cellWidth);
     drawLowerRight(sb, pos + cellWidth + offset);
     drawLowerLeft(sb, pos + offset);
     drawHorizontal(sb, pos + 1, cellWidth - 1); // upper border
-    drawVertical(sb, pos + LINE_LEN, 2 * size - 1); // left border
+    drawVertical(sb, pos + lineLen, 2 * size - 1, lineLen); // left border
   }
 
   private void drawUpperLeft(final StringBuilder sb, final int pos) {
@@ -184,9 +196,10 @@ private void drawHorizontal(final StringBuilder sb, final int start, final int l
     replace(sb, start, line.toString());
   }
 
-  private void drawVertical(final StringBuilder sb, final int start, final int len) {
+  private void drawVertical(final StringBuilder sb, final int start, final int len,
+      final int lineLen) {
     for (int i = 0; i < len; i++) {
-      final int pos = start + i * LINE_LEN;
+      final int pos = start + i * lineLen;
       final Border replacement = switch (Border.from(sb.charAt(pos))) {
         case PIPE, BLANK -> Border.PIPE;
         case LOWER_LEFT, UPPER_LEFT, LEFT_T -> Border.LEFT_T;
@@ -5,94 +5,187 @@
 import io.jenetics.IntegerGene;
 import io.jenetics.Phenotype;
 import io.jenetics.engine.Constraint;
-import io.nuevedejun.gadantic.Iterables.Cell;
-import io.nuevedejun.gadantic.Iterables.Grid;
 import io.nuevedejun.gadantic.PlotPhenotype.Crop;
 import io.quarkus.logging.Log;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
 
 import static io.jenetics.util.RandomRegistry.random;
 import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
 import static io.nuevedejun.gadantic.Iterables.arr;
-import static io.nuevedejun.gadantic.Iterables.coordinates;
-import static io.nuevedejun.gadantic.Iterables.grid;
 import static java.lang.Math.min;
 
 /**
  * Constraint that validates and repairs invalid plot layouts.
- * Ensures crops don't overlap and stay within grid bounds.
+ * Ensures crops don't overlap and stay within grid bounds. Genes of masked tiles of the
+ * {@link Garden} are ignored, and no crop may cover a masked tile.
  */
 @ApplicationScoped
 public class PlotConstraint implements Constraint<IntegerGene, Double> {
   private final Iterables.Shuffler shuffler;
+  private final Garden garden;
+
+  @Inject
+  PlotConstraint(final Iterables.Shuffler shuffler, final Garden garden) {
+    this(shuffler, garden, new LongAdder(), new LongAdder());
+  }
 
   PlotConstraint(final Iterables.Shuffler shuffler) {
+    this(shuffler, Garden.DEFAULT);
+  }
+
+  private PlotConstraint(final Iterables.Shuffler shuffler, final Garden garden,
+      final LongAdder tested, final LongAdder repaired) {
     this.shuffler = shuffler;
+    this.garden = garden;
+    this.scratches = ThreadLocal.withInitial(() -> new Scratch(garden));
+    this.tested = tested;
+    this.repaired = repaired;
   }
 
-  private record Square(int x0, int x1, int y0, int y1, int size) {
-    private Square(final int x, final int y, final int size) {
-      this(x, x + size, y, y + size, size);
-    }
+  /**
+   * Returns the garden of the checked plots.
+   *
+   * @return the garden
+   */
+  Garden garden() {
+    return garden;
+  }
+
+  /**
+   * Returns the constraint of another garden, sharing the tested and repaired counts of this one.
+   *
+   * @param garden the garden of the checked plots
+   * @return the constraint
+   */
+  PlotConstraint of(final Garden garden) {
+    return garden.equals(this.garden)
+        ? this
+        : new PlotConstraint(shuffler, garden, tested, repaired);
+  }
 
-    private static Square of(final Cell<Crop> tile) {
-      return new Square(tile.x(), tile.y(), tile.value().size);
+  /**
+   * Tiles covered by the crops placed so far.
+   * <p>
+   * Every tile records the crop covering it by the index of the crop's upper left tile, so that
+   * scanning a square is enough to tell whether it contains, is contained by, or partially overlaps
+   * the crops already placed.
+   */
+  private static final class Occupancy {
+    private final int width;
+    /** Upper left tile plus one of the crop covering each tile, or 0 if the tile is free. */
+    private final int[] owner;
+    /** Side of the crop whose upper left corner is at each tile. */
+    private final int[] side;
+
+    private Occupancy(final Garden garden) {
+      width = garden.width();
+      owner = new int[garden.tiles()];
+      side = new int[garden.tiles()];
     }
 
     /**
-     * Creates a new {@code Square} instance with the specified size, using the current object's
-     * origin coordinates.
+     * Remove all crops.
      *
-     * @param size the length of the sides of the new square
-     * @return a new {@code Square} with the same origin and the given size
+     * @return this occupancy, now empty
      */
-    private Square withSize(final int size) {
-      return new Square(x0, y0, size);
+    private Occupancy clear() {
+      Arrays.fill(owner, 0);
+      return this;
     }
 
     /**
-     * Checks if the specified {@code Square} is completely contained within the bounds defined by
-     * this object.
+     * Mark the tiles occupied by the crop, replacing the crops it contains.
      *
-     * @param square the {@code Square} to check for containment
-     * @return {@code true} if the given square is entirely within the bounds; {@code false}
-     * otherwise
+     * @param tile the upper left tile of the crop
+     * @param size the side of the crop
      */
-    private boolean contains(final Square square) {
-      return square.x0() >= x0 && square.y0() >= y0
-          && square.x1() <= x1 && square.y1() <= y1;
+    private void fill(final int tile, final int size) {
+      for (int j = 0; j < size; j++) {
+        Arrays.fill(owner, tile + j * width, tile + j * width + size, tile + 1);
+      }
+      side[tile] = size;
     }
   }
 
 
-  private record IntArrayValue(int pos, int value) {
+  private enum CheckResult {
+    OVERRIDE, REJECT, IGNORE
   }
 
 
-  private enum CheckResult {
-    OVERRIDE, REJECT, IGNORE
+  /**
+   * Per-thread buffers reused across individuals, so that checking a plot allocates nothing.
+   */
+  private static final class Scratch {
+    private final int[] genes;
+    /** Tile visiting order of the repair, shuffled in place every time. */
+    private final int[] tiles;
+    private final Occupancy occupancy;
+
+    private Scratch(final Garden garden) {
+      genes = new int[garden.tiles()];
+      tiles = IntStream.range(0, garden.tiles()).toArray();
+      occupancy = new Occupancy(garden);
+    }
+  }
+
+
+  /** Side of each crop, indexed by ordinal. */
+  private static final int[] SIZE = new int[Crop.len()];
+
+  static {
+    for (int ordinal = 0; ordinal < SIZE.length; ordinal++) {
+      SIZE[ordinal] = Crop.at(ordinal).size;
+    }
+  }
+
+  private final ThreadLocal<Scratch> scratches;
+  private final LongAdder tested;
+  private final LongAdder repaired;
+
+  /**
+   * Returns how many individuals have been tested since startup.
+   *
+   * @return the tested count
+   */
+  long tested() {
+    return tested.sum();
+  }
+
+  /**
+   * Returns how many individuals have been repaired since startup.
+   *
+   * @return the repaired count
+   */
+  long repaired() {
+    return repaired.sum();
   }
 
   @Override
   public boolean test(final Phenotype<IntegerGene, Double> individual) {
     Log.trace(LOG_FQCN, "Testing individual: {0}", arr(pretty(individual)), null);
+    tested.increment();
 
-    final IntegerChromosome chromosome = individual.genotype().chromosome()
-        .as(IntegerChromosome.class);
-    final var grid = grid(Arrays.asList(new Square[9 * 9]), 9);
-    final var cropGrid = grid(Arrays.stream(chromosome.toArray()).mapToObj(Crop::at).toList(), 9);
-    for (final var cell : cropGrid) {
-      final Square square = Square.of(cell);
-      switch (checkCropTile(grid, square)) {
+    final Scratch scratch = scratches.get();
+    final int[] genes = individual.genotype().chromosome()
+        .as(IntegerChromosome.class).toArray(scratch.genes);
+    final Occupancy occupancy = scratch.occupancy.clear();
+    for (int tile = 0; tile < genes.length; tile++) {
+      if (!garden.plantable(tile)) {
+        continue;
+      }
+      final int size = SIZE[genes[tile]];
+      switch (checkCropTile(occupancy, tile, size)) {
         case REJECT:
           Log.trace("Individual was rejected");
           return false;
         case OVERRIDE:
-          fillMatrix(grid, square);
+          occupancy.fill(tile, size);
           break;
         case IGNORE:
           // do nothing
@@ -108,33 +201,32 @@ public Phenotype<IntegerGene, Double> repair(
       final Phenotype<IntegerGene, Double> individual, final long generation) {
     Log.trace(LOG_FQCN, "Repairing individual: {0}; at generation {1}",
         arr(pretty(individual), generation), null);
+    repaired.increment();
 
+    final Scratch scratch = scratches.get();
     final IntegerChromosome chromosome = individual.genotype().chromosome()
         .as(IntegerChromosome.class);
-    final var grid = grid(Arrays.asList(new Square[9 * 9]), 9);
-    final List<IntArrayValue> changes = new ArrayList<>();
-    // shuffle the coordinates to avoid bias towards the first ones
-    final var cropGrid = grid(Arrays.stream(chromosome.toArray()).mapToObj(Crop::at).toList(), 9);
-    for (final var cell : shuffler.shuffle(cropGrid)) {
-      final Square square = Square.of(cell);
-      final int valid = validCropSize(grid, square);
-      Log.trace(LOG_FQCN, "Valid size for {0} is {1}", arr(square, valid), null);
-
-      Crop replacement = cell.value();
-      boolean replace = false;
-      while (replacement.size > valid) {
-        Log.trace(LOG_FQCN, "Crop {0} is invalid in place of {1}", arr(replacement, cell), null);
-        replacement = Crop.at(random().nextInt(Crop.len()));
-        replace = true;
+    final int[] genes = chromosome.toArray(scratch.genes);
+    final Occupancy occupancy = scratch.occupancy.clear();
+    // shuffle the tiles to avoid bias towards the first ones
+    shuffler.shuffle(scratch.tiles, garden.width());
+    for (final int tile : scratch.tiles) {
+      if (!garden.plantable(tile)) {
+        continue;
       }
-      if (replace) {
-        changes.add(new IntArrayValue(grid.width() * cell.y() + cell.x(), replacement.ordinal()));
+      // each tile is visited once, so replacing its gene right away does not affect the others
+      final int valid = validCropSize(occupancy, tile, SIZE[genes[tile]]);
+      while (SIZE[genes[tile]] > valid) {
+        if (Log.isTraceEnabled()) {
+          Log.trace(LOG_FQCN, "Crop {0} is invalid at tile {1}, whose valid size is {2}",
+              arr(Crop.at(genes[tile]), tile, valid), null);
+        }
+        genes[tile] = random().nextInt(Crop.len());
       }
     }
 
-    final var old = individual.genotype().chromosome();
-    final var fixed = Genotype.of(old.as(IntegerChromosome.class).map(arr -> {
-      changes.forEach(change -> arr[change.pos()] = change.value());
+    final var fixed = Genotype.of(chromosome.map(arr -> {
+      System.arraycopy(genes, 0, arr, 0, arr.length);
       return arr;
     }));
     Log.trace(LOG_FQCN, "Repaired plot: {0}", arr(pretty(fixed)), null);
@@ -166,10 +258,10 @@ public String toString() {
         sb.append("Raw genotype=").append(genotype).append('\n');
         final var chromosome = genotype.chromosome();
         sb.append("Pretty genotype");
-        for (int j = 0; j < 9; j++) {
+        for (int j = 0; j < garden.height(); j++) {
           sb.append("\n");
-          for (int i = 0; i < 9; i++) {
-            final int code = chromosome.get(j * 9 + i).allele();
+          for (int i = 0; i < garden.width(); i++) {
+            final int code = chromosome.get(j * garden.width() + i).allele();
             final Crop crop = Crop.at(code);
             sb.append(String.format("%4.4s ", crop));
           }
@@ -179,52 +271,47 @@ public String toString() {
     };
   }
 
-  private CheckResult checkCropTile(final Grid<Square> grid, final Square square) {
-    // check if the crop fits in the plot
-    if (square.x1() > grid.width() || square.y1() > grid.height()) {
+  private CheckResult checkCropTile(final Occupancy occupancy, final int tile, final int size) {
+    // check if the crop fits in the plantable tiles
+    if (size > garden.maxFit(tile)) {
       return CheckResult.REJECT;
     }
-    // check partial overlap in crop tiles
-    for (final var c : coordinates(square.x0(), square.x1(), square.y0(), square.y1())) {
-      final Square current = grid.at(c);
-      if (current != null && !square.contains(current)) {
-        if (current.contains(square)) {
-          return CheckResult.IGNORE;
-        } else {
-          return CheckResult.REJECT;
+    final int width = garden.width();
+    final int x = tile % width;
+    final int y = tile / width;
+    final int first = occupancy.owner[tile];
+    boolean single = first != 0;
+    boolean crossing = false;
+    for (int j = 0; j < size; j++) {
+      for (int i = 0; i < size; i++) {
+        final int owner = occupancy.owner[tile + i + j * width];
+        single &= owner == first;
+        if (owner != 0) {
+          // the overlapped crop must lie completely inside the square
+          final int ox = (owner - 1) % width;
+          final int oy = (owner - 1) / width;
+          final int side = occupancy.side[owner - 1];
+          crossing |= ox < x || oy < y || ox + side > x + size || oy + side > y + size;
         }
       }
     }
-    return CheckResult.OVERRIDE;
-  }
-
-  /**
-   * Mark the tiles occupied by the crop.
-   *
-   * @param grid the grid to fill
-   * @param target the square to fill with
-   */
-  private void fillMatrix(final Grid<Square> grid, final Square target) {
-    for (final var c : coordinates(target.x0(), target.x1(), target.y0(), target.y1())) {
-      grid.set(c, target);
+    if (!crossing) {
+      // the square is free, or every overlapped crop is contained in it
+      return CheckResult.OVERRIDE;
     }
+    // the square is contained in a crop if all its tiles are covered by that crop
+    return single ? CheckResult.IGNORE : CheckResult.REJECT;
   }
 
-  private int validCropSize(final Grid<Square> grid, final Square square) {
-    final int remainRight = grid.width() - square.x0();
-    final int remainDown = grid.height() - square.y0();
-    int valid = min(square.size(), min(remainRight, remainDown));
+  private int validCropSize(final Occupancy occupancy, final int tile, final int size) {
+    // sizes beyond the plot edges are rejected anyway, so start from the largest that fits
+    int valid = min(size, garden.maxFit(tile));
     CheckResult result;
-    do {
-      Log.trace(LOG_FQCN, "Attempting to fit {0}. Current [valid] is {1}",
-          arr(square, valid), null);
-      result = checkCropTile(grid, square.withSize(valid));
+    while ((result = checkCropTile(occupancy, tile, valid)) == CheckResult.REJECT) {
       valid--;
-    } while (result == CheckResult.REJECT);
-
-    valid++; // undo last decrement
+    }
     if (result == CheckResult.OVERRIDE) {
-      fillMatrix(grid, square.withSize(valid));
+      occupancy.fill(tile, valid);
     }
     return valid;
   }
@@ -15,6 +15,7 @@
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.Collectors;
 
 import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
@@ -83,32 +84,630 @@ public String toString() {
     }
   }
 
+  /**
+   * Canonical encoding of a decoded plot.
+   * <p>
+   * Genes covered by a larger crop are ignored when decoding, so many genotypes map to the same
+   * plot. The layout keeps one 4-bit code per tile instead: the crop ordinal on the origin tile of
+   * each crop, and {@link #COVERED} everywhere else. Two genotypes have equal layouts if and only if
+   * they decode to the same plot.
+   *
+   * @param words the tile codes, 16 tiles per word in row-major order
+   */
+  record Layout(long[] words) {
+    /**
+     * Code of the tiles covered by a crop whose origin is elsewhere.
+     */
+    public static final int COVERED = 0xF;
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof Layout(final long[] other) && Arrays.equals(words, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+      return "Layout" + Arrays.toString(words);
+    }
+  }
+
+  /**
+   * Fitness-only counterpart of {@link Impl#decode(Genotype, Garden)}.
+   * <p>
+   * Computes the same statistics as the full decoder directly on the raw gene array. Tile ownership
+   * is resolved on a flat primitive array, and the resulting layout is kept as the two words of a
+   * {@link Bitboard} per crop, perk and crop instance, so that perk coverage and symmetry scores
+   * are computed with shifts and popcounts. The words are moved with the word-level shifts of the
+   * garden instead of building bitboards, and the scratch buffers are reused between evaluations,
+   * so no allocation takes place per call. As a consequence, instances are not thread-safe and
+   * must be confined to a single thread.
+   * <p>
+   * A kernel evaluates plots of a single {@link Garden}. Masked tiles own no crop, and the genes
+   * on them are ignored.
+   */
+  final class Kernel {
+    private static final int PERKS = Perk.values().length;
+    private static final int CLASSES = PERKS * (Crop.APPLES.size + 1);
+    private static final int CODE_BITS = 4;
+    private static final int CODES_PER_WORD = Long.SIZE / CODE_BITS;
+
+    private static final int[] SIZE = new int[Crop.len()];
+    private static final int[] PERK = new int[Crop.len()];
+    private static final int[] EQUIVALENCE = new int[Crop.len()];
+
+    static {
+      for (int i = 0; i < Crop.len(); i++) {
+        final Crop crop = Crop.at(i);
+        SIZE[i] = crop.size;
+        PERK[i] = crop.perk.ordinal();
+        // crops are equivalent for symmetry purposes if they have the same perk and size
+        EQUIVALENCE[i] = crop.perk.ordinal() * (Crop.APPLES.size + 1) + crop.size;
+      }
+    }
+
+    private final Garden garden;
+    private final int tiles;
+    private final int[] genes;
+    /** Index of the origin tile of the crop covering each tile, or -1 for masked tiles. */
+    private final int[] owner;
+    /** Tiles of each crop instance, indexed by origin tile. */
+    private final long[] instanceLo;
+    private final long[] instanceHi;
+    /** Tiles of each crop type, indexed by crop ordinal. */
+    private final long[] cropLo = new long[Crop.len()];
+    private final long[] cropHi = new long[Crop.len()];
+    /** Tiles providing each perk, indexed by perk ordinal. */
+    private final long[] perkLo = new long[PERKS];
+    private final long[] perkHi = new long[PERKS];
+    /** Tiles of each class of equivalent crops. */
+    private final long[] classLo = new long[CLASSES];
+    private final long[] classHi = new long[CLASSES];
+    /** Tiles with each perk fully applied, indexed by perk ordinal. */
+    private final int[] coverage = new int[PERKS];
+
+    /** Buffs applied to each crop instance and perks it fully covers, indexed by origin tile. */
+    private final byte[] contribution;
+    /** Origins of the crops to remove from and recount in an incremental evaluation. */
+    private final boolean[] removed;
+    private final boolean[] recounted;
+    /** Symmetry matches of each class of equivalent crops. */
+    private final int[] horizontal = new int[CLASSES];
+    private final int[] vertical = new int[CLASSES];
+    private final int[] rotational = new int[CLASSES];
+
+    private int unique;
+    private int applied;
+    private int available;
+    private int horizontalMatches;
+    private int verticalMatches;
+    private int rotationalMatches;
+
+    /**
+     * Creates a kernel evaluating plots of the {@link Garden#DEFAULT default} garden.
+     */
+    public Kernel() {
+      this(Garden.DEFAULT);
+    }
+
+    /**
+     * Creates a kernel evaluating plots of a garden.
+     *
+     * @param garden the shape of the evaluated plots
+     */
+    public Kernel(final Garden garden) {
+      this.garden = garden;
+      this.tiles = garden.tiles();
+      this.genes = new int[tiles];
+      this.owner = new int[tiles];
+      this.instanceLo = new long[tiles];
+      this.instanceHi = new long[tiles];
+      this.contribution = new byte[tiles];
+      this.removed = new boolean[tiles];
+      this.recounted = new boolean[tiles];
+    }
+
+    /**
+     * Returns the garden of the evaluated plots.
+     *
+     * @return the garden
+     */
+    public Garden garden() {
+      return garden;
+    }
+
+    /**
+     * Evaluates the plot encoded by the given genotype.
+     *
+     * @param genotype the genotype to evaluate
+     * @return this kernel, holding the statistics of the evaluated plot
+     */
+    public Kernel evaluate(final Genotype<IntegerGene> genotype) {
+      return evaluate(genotype.chromosome().as(IntegerChromosome.class).toArray(genes));
+    }
+
+    /**
+     * Evaluates the plot encoded by the given array of crop ordinals.
+     *
+     * @param array the crop ordinals of the plot in row-major order
+     * @return this kernel, holding the statistics of the evaluated plot
+     */
+    public Kernel evaluate(final int[] array) {
+      if (array != genes) {
+        System.arraycopy(array, 0, genes, 0, tiles);
+      }
+      fill(genes);
+      index(genes);
+      buff(genes);
+      symmetries();
+      return this;
+    }
+
+    /**
+     * Evaluates the plot encoded by the given genotype, starting from the statistics of a related
+     * plot.
+     * <p>
+     * Tile ownership is always resolved in full, since it is cheap. Buffs are only recounted for
+     * the crops on or next to the tiles whose crop changed, and symmetries only for the classes
+     * of crops whose tiles changed. If more than {@code limit} tiles changed, the plot is evaluated
+     * from scratch instead.
+     *
+     * @param parent the snapshot of the related plot
+     * @param genotype the genotype to evaluate
+     * @param limit the maximum number of changed tiles to evaluate incrementally
+     * @return this kernel, holding the statistics of the evaluated plot
+     */
+    public Kernel evaluate(final Snapshot parent, final Genotype<IntegerGene> genotype,
+        final int limit) {
+      return evaluate(parent, genotype.chromosome().as(IntegerChromosome.class).toArray(genes),
+          limit);
+    }
+
+    /**
+     * Evaluates the plot encoded by the given array of crop ordinals, starting from the statistics
+     * of a related plot, like {@link #evaluate(Snapshot, Genotype, int)}.
+     *
+     * @param parent the snapshot of the related plot
+     * @param plot the crop ordinals of the plot in row-major order
+     * @param limit the maximum number of changed tiles to evaluate incrementally
+     * @return this kernel, holding the statistics of the evaluated plot
+     */
+    public Kernel evaluate(final Snapshot parent, final int[] plot, final int limit) {
+      if (plot != genes) {
+        System.arraycopy(plot, 0, genes, 0, tiles);
+      }
+      final int[] array = genes;
+      fill(array);
+      index(array);
+
+      long dirtyLo = 0;
+      long dirtyHi = 0;
+      int dirty = 0;
+      for (int tile = 0; tile < tiles; tile++) {
+        final int origin = owner[tile];
+        final int previous = parent.owner[tile];
+        if (origin != previous || origin >= 0 && array[origin] != parent.genes[previous]) {
+          if (tile < Long.SIZE) {
+            dirtyLo |= 1L << tile;
+          } else {
+            dirtyHi |= 1L << (tile - Long.SIZE);
+          }
+          dirty++;
+        }
+      }
+      if (dirty > limit) {
+        buff(array);
+        symmetries();
+        return this;
+      }
+
+      // crops next to a changed tile may gain or lose buffs, even if they did not change
+      final long touchedLo = (dirtyLo | garden.northLo(dirtyLo, dirtyHi)
+          | garden.southLo(dirtyLo, dirtyHi) | garden.westLo(dirtyLo, dirtyHi)
+          | garden.eastLo(dirtyLo, dirtyHi)) & garden.plantable().lo();
+      final long touchedHi = (dirtyHi | garden.northHi(dirtyLo, dirtyHi)
+          | garden.southHi(dirtyLo, dirtyHi) | garden.westHi(dirtyLo, dirtyHi)
+          | garden.eastHi(dirtyLo, dirtyHi)) & garden.plantable().hi();
+      System.arraycopy(parent.coverage, 0, coverage, 0, PERKS);
+      System.arraycopy(parent.contribution, 0, contribution, 0, tiles);
+      applied = parent.applied;
+      available = parent.available;
+      // recount the crops in the touched area, dropping what the parent's crops there counted
+      Arrays.fill(removed, false);
+      Arrays.fill(recounted, false);
+      for (long bits = touchedLo; bits != 0; bits &= bits - 1) {
+        mark(parent, Long.numberOfTrailingZeros(bits));
+      }
+      for (long bits = touchedHi; bits != 0; bits &= bits - 1) {
+        mark(parent, Long.SIZE + Long.numberOfTrailingZeros(bits));
+      }
+      for (int origin = 0; origin < tiles; origin++) {
+        if (removed[origin]) {
+          accumulate(SIZE[parent.genes[origin]], parent.contribution[origin], -1);
+        }
+        if (recounted[origin]) {
+          contribution[origin] = contribute(origin, array);
+          accumulate(SIZE[array[origin]], contribution[origin], 1);
+        }
+      }
+      unique = distinct();
+
+      horizontalMatches = 0;
+      verticalMatches = 0;
+      rotationalMatches = 0;
+      for (int key = 0; key < CLASSES; key++) {
+        if (classLo[key] == parent.classLo[key] && classHi[key] == parent.classHi[key]) {
+          horizontal[key] = parent.horizontal[key];
+          vertical[key] = parent.vertical[key];
+          rotational[key] = parent.rotational[key];
+        } else {
+          symmetry(key);
+        }
+        horizontalMatches += horizontal[key];
+        verticalMatches += vertical[key];
+        rotationalMatches += rotational[key];
+      }
+      return this;
+    }
+
+    /**
+     * Captures the state of the last evaluated plot, so that related plots can later be evaluated
+     * incrementally from it.
+     *
+     * @return a snapshot of the kernel state
+     */
+    public Snapshot snapshot() {
+      return new Snapshot(this);
+    }
+
+    /**
+     * Returns the canonical layout of the plot encoded by the given genotype. Only tile ownership
+     * is resolved, so this is much cheaper than a full evaluation.
+     *
+     * @param genotype the genotype to encode
+     * @return the layout of the decoded plot
+     */
+    public Layout layout(final Genotype<IntegerGene> genotype) {
+      final int[] array = genotype.chromosome().as(IntegerChromosome.class).toArray(genes);
+      fill(array);
+      final long[] words = new long[Math.ceilDiv(tiles, CODES_PER_WORD)];
+      for (int tile = 0; tile < tiles; tile++) {
+        final long code = owner[tile] == tile ? array[tile] : Layout.COVERED;
+        words[tile / CODES_PER_WORD] |= code << (tile % CODES_PER_WORD * CODE_BITS);
+      }
+      return new Layout(words);
+    }
+
+    private void fill(final int[] array) {
+      Arrays.fill(owner, -1);
+      final int width = garden.width();
+      for (int pos = 0; pos < tiles; pos++) {
+        if (owner[pos] < 0 && garden.plantable(pos)) {
+          final int size = SIZE[array[pos]];
+          for (int dy = 0; dy < size; dy++) {
+            for (int dx = 0; dx < size; dx++) {
+              // same arithmetic as the grid: overflowing the width wraps to the next row
+              owner[pos + dx + dy * width] = pos;
+            }
+          }
+        }
+      }
+    }
+
+    private void index(final int[] array) {
+      Arrays.fill(instanceLo, 0);
+      Arrays.fill(instanceHi, 0);
+      Arrays.fill(cropLo, 0);
+      Arrays.fill(cropHi, 0);
+      for (int tile = 0; tile < tiles; tile++) {
+        final int origin = owner[tile];
+        if (origin < 0) {
+          continue;
+        }
+        final int crop = array[origin];
+        if (tile < Long.SIZE) {
+          final long bit = 1L << tile;
+          instanceLo[origin] |= bit;
+          cropLo[crop] |= bit;
+        } else {
+          final long bit = 1L << (tile - Long.SIZE);
+          instanceHi[origin] |= bit;
+          cropHi[crop] |= bit;
+        }
+      }
+      Arrays.fill(perkLo, 0);
+      Arrays.fill(perkHi, 0);
+      Arrays.fill(classLo, 0);
+      Arrays.fill(classHi, 0);
+      for (int crop = 0; crop < Crop.len(); crop++) {
+        perkLo[PERK[crop]] |= cropLo[crop];
+        perkHi[PERK[crop]] |= cropHi[crop];
+        classLo[EQUIVALENCE[crop]] |= cropLo[crop];
+        classHi[EQUIVALENCE[crop]] |= cropHi[crop];
+      }
+    }
+
+    private void buff(final int[] array) {
+      Arrays.fill(coverage, 0);
+      applied = 0;
+      // sides facing the border or a masked tile receive no buffs
+      available = -garden.border();
+      for (int origin = 0; origin < tiles; origin++) {
+        if ((instanceLo[origin] | instanceHi[origin]) != 0) {
+          contribution[origin] = contribute(origin, array);
+          accumulate(SIZE[array[origin]], contribution[origin], 1);
+        }
+      }
+      unique = distinct();
+    }
+
+    /**
+     * Counts the buffs received by a crop instance.
+     *
+     * @return the number of buffs applied in the lower 4 bits, and the perks fully covered above
+     */
+    private byte contribute(final int origin, final int[] array) {
+      final long lo = instanceLo[origin];
+      final long hi = instanceHi[origin];
+      final int crop = array[origin];
+      final int size = SIZE[crop];
+      // every tile of a neighbour direction pairs one target tile with one source tile
+      final long northLo = garden.northLo(lo, hi);
+      final long northHi = garden.northHi(lo, hi);
+      final long southLo = garden.southLo(lo, hi);
+      final long southHi = garden.southHi(lo, hi);
+      final long westLo = garden.westLo(lo, hi);
+      final long westHi = garden.westHi(lo, hi);
+      final long eastLo = garden.eastLo(lo, hi);
+      final long eastHi = garden.eastHi(lo, hi);
+      int buffs = 0;
+      int covered = 0;
+      for (int perk = 0; perk < PERKS; perk++) {
+        // crops do not buff other crops of their same type
+        final long sourceLo = perkLo[perk] & ~cropLo[crop];
+        final long sourceHi = perkHi[perk] & ~cropHi[crop];
+        final int count = Long.bitCount(northLo & sourceLo) + Long.bitCount(northHi & sourceHi)
+            + Long.bitCount(southLo & sourceLo) + Long.bitCount(southHi & sourceHi)
+            + Long.bitCount(westLo & sourceLo) + Long.bitCount(westHi & sourceHi)
+            + Long.bitCount(eastLo & sourceLo) + Long.bitCount(eastHi & sourceHi);
+        buffs += Math.min(count, size);
+        if (count >= size) {
+          covered |= 1 << perk;
+        }
+      }
+      return (byte) (covered << 4 | buffs);
+    }
+
+    private void mark(final Snapshot parent, final int tile) {
+      removed[parent.owner[tile]] = true;
+      recounted[owner[tile]] = true;
+    }
+
+    private void accumulate(final int size, final byte contribution, final int sign) {
+      applied += sign * (contribution & 0xF);
+      for (int perk = 0; perk < PERKS; perk++) {
+        if ((contribution >> 4 & 1 << perk) != 0) {
+          coverage[perk] += sign * size * size;
+        }
+      }
+      available += sign * 4 * size;
+    }
+
+    private int distinct() {
+      int count = 0;
+      for (int crop = 0; crop < Crop.len(); crop++) {
+        if ((cropLo[crop] | cropHi[crop]) != 0) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    private void symmetries() {
+      horizontalMatches = 0;
+      verticalMatches = 0;
+      rotationalMatches = 0;
+      for (int key = 0; key < CLASSES; key++) {
+        symmetry(key);
+        horizontalMatches += horizontal[key];
+        verticalMatches += vertical[key];
+        rotationalMatches += rotational[key];
+      }
+    }
+
+    private void symmetry(final int key) {
+      final long lo = classLo[key];
+      final long hi = classHi[key];
+      if ((lo | hi) == 0) {
+        horizontal[key] = 0;
+        vertical[key] = 0;
+        rotational[key] = 0;
+      } else {
+        horizontal[key] = matches(lo, hi, garden.mirrorHorizontalLo(lo, hi),
+            garden.mirrorHorizontalHi(lo, hi), garden.horizontal());
+        vertical[key] = matches(lo, hi, garden.mirrorVerticalLo(lo, hi),
+            garden.mirrorVerticalHi(lo, hi), garden.vertical());
+        rotational[key] = matches(lo, hi, garden.rotateLo(lo, hi), garden.rotateHi(lo, hi),
+            garden.rotational());
+      }
+    }
+
+    private static int matches(final long lo, final long hi, final long partnerLo,
+        final long partnerHi, final Bitboard compared) {
+      return Long.bitCount(lo & partnerLo & compared.lo())
+          + Long.bitCount(hi & partnerHi & compared.hi());
+    }
+
+    /**
+     * Returns the number of tiles with full water perk.
+     *
+     * @return the water count
+     */
+    public int water() {
+      return coverage[WATER.ordinal()];
+    }
+
+    /**
+     * Returns the number of tiles with full weed perk.
+     *
+     * @return the weed count
+     */
+    public int weed() {
+      return coverage[WEED.ordinal()];
+    }
+
+    /**
+     * Returns the number of tiles with full quality perk.
+     *
+     * @return the quality count
+     */
+    public int quality() {
+      return coverage[QUALITY.ordinal()];
+    }
+
+    /**
+     * Returns the number of tiles with full harvest perk.
+     *
+     * @return the harvest count
+     */
+    public int harvest() {
+      return coverage[HARVEST.ordinal()];
+    }
+
+    /**
+     * Returns the number of distinct crop types.
+     *
+     * @return the unique count
+     */
+    public int unique() {
+      return unique;
+    }
+
+    /**
+     * Returns the ratio of successful buff applications to available slots.
+     *
+     * @return the buff efficiency
+     */
+    public double efficiency() {
+      return (double) applied / available;
+    }
+
+    /**
+     * Returns the horizontal symmetry score.
+     *
+     * @return the score in [0, 1]
+     */
+    public double horizontalSymmetry() {
+      return ratio(horizontalMatches, garden.horizontalPairs());
+    }
+
+    /**
+     * Returns the vertical symmetry score.
+     *
+     * @return the score in [0, 1]
+     */
+    public double verticalSymmetry() {
+      return ratio(verticalMatches, garden.verticalPairs());
+    }
+
+    /**
+     * Returns the rotational symmetry score.
+     *
+     * @return the score in [0, 1]
+     */
+    public double rotationalSymmetry() {
+      return ratio(rotationalMatches, garden.rotationalPairs());
+    }
+
+    private static double ratio(final int matches, final int pairs) {
+      return pairs == 0 ? 0 : (double) matches / pairs;
+    }
+  }
+
+  /**
+   * Immutable copy of the state of a {@link Kernel} after evaluating a plot. Holds what is needed
+   * to evaluate a related plot incrementally, in a few hundred bytes.
+   */
+  final class Snapshot {
+    private final byte[] genes;
+    private final byte[] owner;
+    private final byte[] contribution;
+    private final long[] classLo;
+    private final long[] classHi;
+    private final int[] horizontal;
+    private final int[] vertical;
+    private final int[] rotational;
+    private final int[] coverage;
+    private final int applied;
+    private final int available;
+
+    private Snapshot(final Kernel kernel) {
+      genes = new byte[kernel.tiles];
+      owner = new byte[kernel.tiles];
+      for (int tile = 0; tile < kernel.tiles; tile++) {
+        genes[tile] = (byte) kernel.genes[tile];
+        owner[tile] = (byte) kernel.owner[tile];
+      }
+      contribution = kernel.contribution.clone();
+      classLo = kernel.classLo.clone();
+      classHi = kernel.classHi.clone();
+      horizontal = kernel.horizontal.clone();
+      vertical = kernel.vertical.clone();
+      rotational = kernel.rotational.clone();
+      coverage = kernel.coverage.clone();
+      applied = kernel.applied;
+      available = kernel.available;
+    }
+  }
+
   /**
    * Decodes a genotype into a Plot with calculated statistics.
+   * <p>
+   * The full plot is meant for printing and reporting. Fitness evaluation should use the
+   * {@link Kernel} instead, which computes the same statistics without allocating.
    *
    * @param genotype the genotype to decode
+   * @param garden the shape of the plot
    * @return the decoded plot with all metrics calculated
    */
-  Plot decode(final Genotype<IntegerGene> genotype);
+  Plot decode(final Genotype<IntegerGene> genotype, final Garden garden);
+
+  /**
+   * Decodes a genotype of the {@link Garden#DEFAULT default} garden.
+   *
+   * @param genotype the genotype to decode
+   * @return the decoded plot with all metrics calculated
+   */
+  default Plot decode(final Genotype<IntegerGene> genotype) {
+    return decode(genotype, Garden.DEFAULT);
+  }
 
   @ApplicationScoped
   class Impl implements PlotDecoder {
 
     @Override
-    public Plot decode(final Genotype<IntegerGene> genotype) {
-      final Grid<RichCrop> plot = grid(Arrays.asList(new RichCrop[81]), 9);
+    public Plot decode(final Genotype<IntegerGene> genotype, final Garden garden) {
+      final Grid<RichCrop> plot = grid(Arrays.asList(new RichCrop[garden.tiles()]),
+          garden.width());
       final var chromosome = genotype.chromosome().as(IntegerChromosome.class);
-      final var geneGrid = grid(Arrays.stream(chromosome.toArray()).mapToObj(Crop::at).toList(), 9);
+      final var geneGrid = grid(Arrays.stream(chromosome.toArray()).mapToObj(Crop::at).toList(),
+          garden.width());
       for (final var cell : geneGrid) {
-        if (plot.at(cell) == null) {
+        if (plot.at(cell) == null && garden.plantable(cell.x() + cell.y() * garden.width())) {
           fillCropTile(plot, cell);
         }
       }
       int applied = 0;
-      final HashSet<RichCrop> set = HashSet.newHashSet(9 * 9);
+      final HashSet<RichCrop> set = HashSet.newHashSet(garden.tiles());
       for (final var cell : plot) {
-        applied += applyBuffs(plot, cell);
-        set.add(cell.value());
+        if (cell.value() != null) {
+          applied += applyBuffs(plot, cell);
+          set.add(cell.value());
+        }
       }
       Log.trace(LOG_FQCN, "Set of decoded crops is: {0}", arr(set), null);
 
@@ -116,7 +715,7 @@ public Plot decode(final Genotype<IntegerGene> genotype) {
       int weed = 0;
       int quality = 0;
       int harvest = 0;
-      int available = -36;
+      int available = -garden.border();
       for (final var crop : set) {
         if (crop.has(WATER)) {
           water += crop.crop.size * crop.crop.size;
@@ -134,13 +733,16 @@ public Plot decode(final Genotype<IntegerGene> genotype) {
       }
       final double efficiency = (double) applied / available;
       final int distinct = set.stream().map(r -> r.crop).collect(Collectors.toSet()).size();
-      final double hSymmetry = calculateHorizontalSymmetry(plot);
-      final double vSymmetry = calculateVerticalSymmetry(plot);
-      final double rSymmetry = calculateRotationalSymmetry(plot);
-      final String layoutUrl = createLayoutUrl(plot);
+      final double hSymmetry = calculateSymmetry(plot, garden.horizontalPairs(),
+          garden::horizontalPartner);
+      final double vSymmetry = calculateSymmetry(plot, garden.verticalPairs(),
+          garden::verticalPartner);
+      final double rSymmetry = calculateSymmetry(plot, garden.rotationalPairs(),
+          garden::rotationalPartner);
+      final String layoutUrl = garden.equals(Garden.DEFAULT) ? createLayoutUrl(plot) : null;
       return new Plot(Set.of(set.toArray(new RichCrop[0])),
           water, weed, quality, harvest, distinct, efficiency,
-          hSymmetry, vSymmetry, rSymmetry, layoutUrl);
+          hSymmetry, vSymmetry, rSymmetry, layoutUrl, garden);
     }
 
     private void fillCropTile(final Grid<RichCrop> plot, final Cell<Crop> cell) {
@@ -156,7 +758,7 @@ private int applyBuffs(final Grid<RichCrop> crops, final Cell<RichCrop> cell) {
       for (final var c : coordinates(-1, 2, -1, 2)) {
         if (c.x() != c.y() && c.x() != -c.y() && crops.contains(cell.plus(c))) {
           final var target = crops.at(cell.plus(c));
-          if (crop.buff(target)) {
+          if (target != null && crop.buff(target)) {
             count++;
           }
         }
@@ -164,6 +766,10 @@ private int applyBuffs(final Grid<RichCrop> crops, final Cell<RichCrop> cell) {
       return count;
     }
 
+    /**
+     * Builds the garden planner URL of a plot of the default garden, made of 3x3 plots of 3x3
+     * tiles.
+     */
     private String createLayoutUrl(final Grid<RichCrop> grid) {
       final StringBuilder sb = new StringBuilder()
           .append("https://palia-garden-planner.vercel.app/?layout=")
@@ -187,48 +793,22 @@ private boolean cropsEquivalent(final Crop a, final Crop b) {
       return a.perk == b.perk && a.size == b.size;
     }
 
-    private double calculateHorizontalSymmetry(final Grid<RichCrop> grid) {
-      int matches = 0;
-      for (int y = 0; y < 9; y++) {
-        for (int x = 0; x < 4; x++) {
-          if (cropsEquivalent(grid.at(x, y).crop, grid.at(8 - x, y).crop)) {
-            matches++;
-          }
-        }
-      }
-      final double total = 9.0 * 4;
-      return matches / total;
-    }
-
-    private double calculateVerticalSymmetry(final Grid<RichCrop> grid) {
-      int matches = 0;
-      for (int y = 0; y < 4; y++) {
-        for (int x = 0; x < 9; x++) {
-          if (cropsEquivalent(grid.at(x, y).crop, grid.at(x, 8 - y).crop)) {
-            matches++;
-          }
-        }
-      }
-      final double total = 9.0 * 4;
-      return matches / total;
-    }
-
-    private double calculateRotationalSymmetry(final Grid<RichCrop> grid) {
+    /**
+     * Computes the ratio of pairs of tiles with equivalent crops among the pairs compared by a
+     * symmetry.
+     */
+    private double calculateSymmetry(final Grid<RichCrop> grid, final int pairs,
+        final IntUnaryOperator partner) {
       int matches = 0;
-      for (int y = 0; y < 9; y++) {
-        for (int x = 0; x < 4; x++) {
-          if (cropsEquivalent(grid.at(x, y).crop, grid.at(8 - x, 8 - y).crop)) {
-            matches++;
-          }
-        }
-      }
-      for (int y = 0; y < 4; y++) {
-        if (cropsEquivalent(grid.at(4, y).crop, grid.at(4, 8 - y).crop)) {
+      final int width = grid.width();
+      for (int tile = 0; tile < width * grid.height(); tile++) {
+        final int other = partner.applyAsInt(tile);
+        if (other >= 0 && cropsEquivalent(grid.at(tile % width, tile / width).crop,
+            grid.at(other % width, other / width).crop)) {
           matches++;
         }
       }
-      final double total = 9.0 * 4 + 4;
-      return matches / total;
+      return pairs == 0 ? 0 : (double) matches / pairs;
     }
 
     private String mapLayout(final Crop crop) {
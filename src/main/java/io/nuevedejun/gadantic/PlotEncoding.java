@@ -0,0 +1,211 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.engine.Codec;
+import io.jenetics.util.Factory;
+import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+
+import java.util.function.Function;
+
+import static java.lang.Math.min;
+
+/**
+ * How genotypes encode plots.
+ * <p>
+ * Every encoding uses one gene per tile of the {@link Garden} holding crop ordinals, so genotypes
+ * of any encoding can be saved and altered the same way. Decoding yields the genotype of the plot
+ * in the direct form understood by {@link PlotDecoder}: the crop of each tile in row-major order,
+ * where tiles covered by a bigger crop hold a single-tile crop that is ignored.
+ */
+public interface PlotEncoding extends Codec<Genotype<IntegerGene>, IntegerGene> {
+
+  /**
+   * Available encodings.
+   */
+  enum Kind {
+    /**
+     * Genes are the plot itself. Crops may overlap or fall off the edge, so offspring have to be
+     * checked and repaired by {@link PlotConstraint}.
+     */
+    DIRECT,
+    /**
+     * Genes are crop preferences, placed greedily into the free tiles. Every genotype decodes to a
+     * valid plot, so offspring never need repairing.
+     */
+    GREEDY
+  }
+
+  /**
+   * Returns which encoding this is.
+   *
+   * @return the encoding kind
+   */
+  Kind kind();
+
+  /**
+   * Returns the garden of the encoded plots.
+   *
+   * @return the garden
+   */
+  Garden garden();
+
+  /**
+   * Checks if decoded plots may be invalid, and thus offspring have to go through
+   * {@link PlotConstraint}.
+   *
+   * @return true if the encoding needs repairing
+   */
+  default boolean repairs() {
+    return kind() == Kind.DIRECT;
+  }
+
+  /**
+   * Returns the encoding of the given kind for the {@link Garden#DEFAULT default} garden.
+   *
+   * @param kind the encoding kind
+   * @return the encoding
+   */
+  static PlotEncoding of(final Kind kind) {
+    return of(kind, Garden.DEFAULT);
+  }
+
+  /**
+   * Returns the encoding of the given kind for a garden.
+   *
+   * @param kind the encoding kind
+   * @param garden the garden of the encoded plots
+   * @return the encoding
+   */
+  static PlotEncoding of(final Kind kind, final Garden garden) {
+    return switch (kind) {
+      case DIRECT -> garden.equals(Garden.DEFAULT) ? Direct.INSTANCE : new Direct(garden);
+      case GREEDY -> garden.equals(Garden.DEFAULT) ? Greedy.INSTANCE : new Greedy(garden);
+    };
+  }
+
+  /**
+   * Encoding where the genotype is the plot.
+   */
+  final class Direct implements PlotEncoding {
+    private static final Direct INSTANCE = new Direct(Garden.DEFAULT);
+
+    private final Garden garden;
+
+    private Direct(final Garden garden) {
+      this.garden = garden;
+    }
+
+    @Override
+    public Kind kind() {
+      return Kind.DIRECT;
+    }
+
+    @Override
+    public Garden garden() {
+      return garden;
+    }
+
+    @Override
+    public Factory<Genotype<IntegerGene>> encoding() {
+      return Genotype.of(IntegerChromosome.of(0, Crop.len(), garden.tiles()));
+    }
+
+    @Override
+    public Function<Genotype<IntegerGene>, Genotype<IntegerGene>> decoder() {
+      return Function.identity();
+    }
+  }
+
+  /**
+   * Encoding where tiles are filled in row-major order. Each free tile gets the crop of its gene,
+   * unless the crop would overlap a previous one or fall off the edge; then it gets the first
+   * crop with the same perk among the biggest that fit. Tiles already covered ignore their gene,
+   * and so do masked tiles.
+   * <p>
+   * Since every genotype is valid, any crossover or mutation of the genes keeps offspring valid.
+   * Genes before a tile fully determine the plot up to that tile, so crossovers also pass on the
+   * placements of the parents' leading rows unchanged.
+   */
+  final class Greedy implements PlotEncoding {
+    private static final Greedy INSTANCE = new Greedy(Garden.DEFAULT);
+
+    private static final int MAX_SIZE = 3;
+    /** Crop placed instead of each ordinal when only a smaller square fits, by ordinal and size. */
+    private static final int[] FALLBACK = new int[Crop.len() * (MAX_SIZE + 1)];
+
+    static {
+      for (final Crop crop : Crop.values()) {
+        for (int size = 1; size <= MAX_SIZE; size++) {
+          Crop fallback = crop;
+          if (crop.size > size) {
+            for (final Crop other : Crop.values()) {
+              if (other.perk == crop.perk && other.size <= size
+                  && (fallback.size > size || other.size > fallback.size)) {
+                fallback = other;
+              }
+            }
+          }
+          FALLBACK[crop.ordinal() * (MAX_SIZE + 1) + size] = fallback.ordinal();
+        }
+      }
+    }
+
+    private final Garden garden;
+
+    private Greedy(final Garden garden) {
+      this.garden = garden;
+    }
+
+    @Override
+    public Kind kind() {
+      return Kind.GREEDY;
+    }
+
+    @Override
+    public Garden garden() {
+      return garden;
+    }
+
+    @Override
+    public Factory<Genotype<IntegerGene>> encoding() {
+      return Genotype.of(IntegerChromosome.of(0, Crop.len(), garden.tiles()));
+    }
+
+    @Override
+    public Function<Genotype<IntegerGene>, Genotype<IntegerGene>> decoder() {
+      return genotype -> {
+        final IntegerChromosome chromosome = genotype.chromosome().as(IntegerChromosome.class);
+        final int[] plot = place(chromosome.toArray());
+        return Genotype.of(chromosome.map(genes -> plot));
+      };
+    }
+
+    /**
+     * Places the crops preferred by the genes into the plot.
+     *
+     * @param genes the crop preferences, replaced by the plot in the direct form
+     * @return the given array
+     */
+    int[] place(final int[] genes) {
+      Bitboard occupied = Bitboard.EMPTY;
+      for (int tile = 0; tile < genes.length; tile++) {
+        if (occupied.has(tile) || !garden.plantable(tile)) {
+          // covered and masked tiles are ignored by the decoder, so any single-tile crop will do
+          genes[tile] = 0;
+          continue;
+        }
+        final int x = tile % garden.width();
+        final int y = tile / garden.width();
+        int size = min(Crop.at(genes[tile]).size, garden.maxFit(tile));
+        while (!occupied.and(garden.square(x, y, size)).isEmpty()) {
+          size--;
+        }
+        genes[tile] = FALLBACK[genes[tile] * (MAX_SIZE + 1) + size];
+        occupied = occupied.or(garden.square(x, y, Crop.at(genes[tile]).size));
+      }
+      return genes;
+    }
+  }
+}
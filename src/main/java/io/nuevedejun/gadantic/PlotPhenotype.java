@@ -1,8 +1,8 @@
 package io.nuevedejun.gadantic;
 
 import io.jenetics.Genotype;
-import io.jenetics.IntegerChromosome;
 import io.jenetics.IntegerGene;
+import io.nuevedejun.gadantic.PlotDecoder.Kernel;
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithDefault;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -19,9 +19,9 @@
 public interface PlotPhenotype {
 
   /**
-   * Returns the genotype encoding for the plot.
+   * Returns the genotype encoding for the plot, as given by the configured {@link PlotEncoding}.
    *
-   * @return genotype with 81 integer genes representing crop types
+   * @return genotype with one integer gene per tile of the garden representing crop types
    */
   Genotype<IntegerGene> encoding();
 
@@ -154,19 +154,87 @@ interface FitnessCoefficients {
      */
     @WithDefault("0.0")
     double rotationalSymmetry();
+
+    /**
+     * Returns a hash of the coefficient values, stable across runs, that identifies which fitness
+     * function produced a fitness value.
+     *
+     * @param coefficients the coefficients to hash
+     * @return the fingerprint
+     */
+    static long fingerprint(final FitnessCoefficients coefficients) {
+      return fingerprint(values(coefficients));
+    }
+
+    /**
+     * Returns a hash of the given values, stable across runs.
+     *
+     * @param values the values to hash
+     * @return the fingerprint
+     */
+    static long fingerprint(final double[] values) {
+      // 64-bit FNV-1a over the raw bits of each value
+      long hash = 0xcbf29ce484222325L;
+      for (final double value : values) {
+        final long bits = Double.doubleToLongBits(value);
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+          hash ^= bits >>> shift & 0xFF;
+          hash *= 0x100000001b3L;
+        }
+      }
+      return hash;
+    }
+
+    /**
+     * Returns the coefficient values in declaration order.
+     *
+     * @param coefficients the coefficients
+     * @return the values
+     */
+    static double[] values(final FitnessCoefficients coefficients) {
+      return new double[]{
+          coefficients.waterRetention(),
+          coefficients.weedPrevention(),
+          coefficients.qualityBoost(),
+          coefficients.harvestIncrease(),
+          coefficients.uniqueCrops(),
+          coefficients.buffEfficiency(),
+          coefficients.horizontalSymmetry(),
+          coefficients.verticalSymmetry(),
+          coefficients.rotationalSymmetry()};
+    }
   }
 
 
   @ApplicationScoped
   class Impl implements PlotPhenotype {
-    private final PlotDecoder plotDecoder;
     private final FitnessCoefficients coefficients;
+    private final PlotEncoding encoding;
+    private final FitnessCache cache;
+    private final Lineage lineage;
     private final double normalize;
 
-    Impl(final PlotDecoder plotDecoder, final FitnessCoefficients coefficients) {
-      this.plotDecoder = plotDecoder;
+    // kernels keep scratch buffers, so each evaluating thread gets its own
+    private final ThreadLocal<Kernel> kernels;
+
+    Impl(final FitnessCoefficients coefficients, final PlotEncoding encoding,
+        final FitnessCache cache, final Lineage lineage) {
       this.coefficients = coefficients;
-      this.normalize = coefficients.waterRetention()
+      this.encoding = encoding;
+      this.kernels = ThreadLocal.withInitial(() -> new Kernel(encoding.garden()));
+      this.cache = cache;
+      this.lineage = lineage;
+      this.normalize = normalize(coefficients);
+    }
+
+    /**
+     * Returns the sum of the coefficients, by which fitness is divided to fall in [0, 1].
+     *
+     * @param coefficients the coefficients
+     * @return the sum of the coefficients
+     */
+    static double normalize(final FitnessCoefficients coefficients) {
+      return coefficients.waterRetention()
           + coefficients.weedPrevention()
           + coefficients.qualityBoost()
           + coefficients.harvestIncrease()
@@ -179,16 +247,55 @@ class Impl implements PlotPhenotype {
 
     @Override
     public Genotype<IntegerGene> encoding() {
-      return Genotype.of(IntegerChromosome.of(0, Crop.len(), 9 * 9));
+      return encoding.encoding().newInstance();
     }
 
     @Override
     public double fitness(final Genotype<IntegerGene> genotype) {
-      final Plot plot = plotDecoder.decode(genotype);
-      return (coefficients.waterRetention() * plot.water() / 81
-          + coefficients.weedPrevention() * plot.weed() / 81
-          + coefficients.qualityBoost() * plot.quality() / 81
-          + coefficients.harvestIncrease() * plot.harvest() / 81
+      final Kernel kernel = kernels.get();
+      final Genotype<IntegerGene> plot = encoding.decode(genotype);
+      if (cache.enabled()) {
+        return cache.get(kernel.layout(plot), layout -> score(evaluate(kernel, genotype, plot)));
+      } else {
+        return score(evaluate(kernel, genotype, plot));
+      }
+    }
+
+    private Kernel evaluate(final Kernel kernel, final Genotype<IntegerGene> genotype,
+        final Genotype<IntegerGene> plot) {
+      if (!lineage.enabled()) {
+        return kernel.evaluate(plot);
+      }
+      // lineage tracks the evolving genotypes, while snapshots describe their decoded plots
+      final PlotDecoder.Snapshot parent = lineage.parentOf(genotype);
+      if (parent == null) {
+        kernel.evaluate(plot);
+      } else {
+        kernel.evaluate(parent, plot, lineage.limit());
+      }
+      lineage.record(genotype, kernel.snapshot());
+      return kernel;
+    }
+
+    private double score(final Kernel plot) {
+      return score(coefficients, normalize, plot);
+    }
+
+    /**
+     * Returns the fitness of the plot last evaluated by a kernel.
+     *
+     * @param coefficients the coefficients of the fitness function
+     * @param normalize the {@link #normalize(FitnessCoefficients) sum} of the coefficients
+     * @param plot the kernel holding the statistics of the plot
+     * @return the fitness
+     */
+    static double score(final FitnessCoefficients coefficients, final double normalize,
+        final Kernel plot) {
+      final int area = plot.garden().area();
+      return (coefficients.waterRetention() * plot.water() / area
+          + coefficients.weedPrevention() * plot.weed() / area
+          + coefficients.qualityBoost() * plot.quality() / area
+          + coefficients.harvestIncrease() * plot.harvest() / area
           + coefficients.uniqueCrops() * plot.unique() / Crop.len()
           + coefficients.buffEfficiency() * plot.efficiency()
           + coefficients.horizontalSymmetry() * plot.horizontalSymmetry()
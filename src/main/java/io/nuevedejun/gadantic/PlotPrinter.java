@@ -42,14 +42,18 @@ public interface PlotPrinter {
   class Impl implements PlotPrinter, AutoCloseable {
 
     private final PlotDecoder decoder;
+    private final PlotEncoding encoding;
+    private final FitnessCache cache;
     private final ScheduledExecutorService executor;
 
     private final AtomicReference<Phenotype<IntegerGene, Double>> ref = new AtomicReference<>();
     private final AtomicLong best = new AtomicLong(Double.doubleToRawLongBits(0));
 
-    Impl(final PlotDecoder decoder,
+    Impl(final PlotDecoder decoder, final PlotEncoding encoding, final FitnessCache cache,
         @ConfigProperty(name = "log-delay-millis", defaultValue = "1000") final long delayMillis) {
       this.decoder = decoder;
+      this.encoding = encoding;
+      this.cache = cache;
 
       executor = Executors.newSingleThreadScheduledExecutor(
           Thread.ofVirtual().name("plot-printer-", 0).factory());
@@ -83,16 +87,17 @@ public void accept(final EvolutionResult<IntegerGene, Double> result) {
     public void print(final Phenotype<IntegerGene, Double> individual) {
       ref.set(null);
 
-      final Genotype<IntegerGene> genotype = individual.genotype();
-      final Plot plot = decoder.decode(genotype);
+      final Genotype<IntegerGene> genotype = encoding.decode(individual.genotype());
+      final Plot plot = decoder.decode(genotype, encoding.garden());
+      final int area = encoding.garden().area();
 
       final StringBuilder sb = new StringBuilder(plot.tableString()).append('\n')
           .append(String.join(" | ", Plot.LEGEND)).append('\n');
 
-      appendPercent(sb, plot.water(), "Water").append(" | ");
-      appendPercent(sb, plot.weed(), "Weed").append(" | ");
-      appendPercent(sb, plot.quality(), "Quality").append(" | ");
-      appendPercent(sb, plot.harvest(), "Harvest").append(" | ");
+      appendPercent(sb, plot.water(), area, "Water").append(" | ");
+      appendPercent(sb, plot.weed(), area, "Weed").append(" | ");
+      appendPercent(sb, plot.quality(), area, "Quality").append(" | ");
+      appendPercent(sb, plot.harvest(), area, "Harvest").append(" | ");
       sb.append("Unique crops: (").append(plot.unique()).append('|')
           .append(percent(plot.unique(), Crop.len())).append("%)").append('\n');
 
@@ -106,14 +111,26 @@ public void print(final Phenotype<IntegerGene, Double> individual) {
           sb.append("Fitness: ").append(String.format("%2.5f", fitness)).append(" | "));
       sb.append("Generation: ").append(individual.generation()).append('\n');
 
-      sb.append("Garden Planner: ").append(plot.layoutUrl());
+      if (cache.enabled()) {
+        final FitnessCache.Stats stats = cache.stats();
+        sb.append("Fitness cache: ").append(stats.size()).append(" layouts | ")
+            .append(String.format("Hits: %2.2f%% | Misses: %2.2f%%",
+                100 * stats.hitRatio(), 100 * stats.missRatio()))
+            .append('\n');
+      }
+
+      if (plot.layoutUrl() != null) {
+        sb.append("Garden Planner: ").append(plot.layoutUrl());
+      } else {
+        sb.append("Garden: ").append(plot.garden());
+      }
 
       Log.info(LOG_FQCN, "Best individual found\n{0}", arr(sb), null);
     }
 
-    private StringBuilder appendPercent(final StringBuilder sb, final int count,
+    private StringBuilder appendPercent(final StringBuilder sb, final int count, final int area,
         final String text) {
-      return sb.append(text).append(": (").append(count).append('|').append(percent(count, 81))
+      return sb.append(text).append(": (").append(count).append('|').append(percent(count, area))
           .append("%)");
     }
 
@@ -9,8 +9,10 @@
 
 /**
  * Mutator that replaces an entire genotype with a new random instance.
+ *
+ * @param <C> the fitness type, so that weighted and Pareto searches use the same mutator
  */
-public class ReplacementMutator extends Mutator<IntegerGene, Double> {
+public class ReplacementMutator<C extends Comparable<? super C>> extends Mutator<IntegerGene, C> {
   /**
    * Creates a replacement mutator with the specified probability.
    *
@@ -0,0 +1,332 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.Seq;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.quarkus.logging.Log;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.nuevedejun.gadantic.Gadantic.LOG_FQCN;
+import static io.nuevedejun.gadantic.Iterables.arr;
+
+/**
+ * Best individuals found for each fitness function, kept across runs so that repeated requests
+ * do not evolve from scratch.
+ * <p>
+ * Results are keyed by the {@link #weights(FitnessCoefficients) weights} of the coefficients and
+ * the encoding and garden of the genotypes. Fitness is divided by the sum of the coefficients,
+ * so scaling all of them yields the same key and the same fitness values. Each key keeps its best
+ * {@link Settings#count()} distinct individuals in a {@link SaveFormat save file} of
+ * {@link Settings#directory()}, next to a properties file with its weights. All keys are loaded
+ * on startup.
+ * <p>
+ * A run for a stored key resumes from its individuals, fitness included. A run for a new key
+ * starts from the individuals of the closest key with the same encoding and garden, which are
+ * evaluated
+ * anew, as long as its weights are within {@link Settings#warmStartDistance()}.
+ */
+@ApplicationScoped
+public class ResultStore implements AutoCloseable {
+
+  /**
+   * Configuration of the result store.
+   */
+  @ConfigMapping(prefix = "results")
+  public interface Settings {
+
+    /**
+     * Whether results are stored and reused.
+     *
+     * @return true if the store is enabled
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Directory holding the stored results.
+     *
+     * @return the directory
+     */
+    @WithDefault("results")
+    Path directory();
+
+    /**
+     * Number of individuals kept for each key.
+     *
+     * @return the individual count
+     */
+    @WithDefault("20")
+    int count();
+
+    /**
+     * Largest Euclidean distance between the weights of a new key and a stored one for the latter
+     * to seed the run (negative to never seed from a different key).
+     *
+     * @return the distance
+     */
+    @WithDefault("0.25")
+    double warmStartDistance();
+  }
+
+  /**
+   * Individuals stored for a key.
+   *
+   * @param weights the normalized coefficients of the key
+   * @param encoding the encoding of the genotypes, with their garden
+   * @param generation the last generation evolved for the key
+   * @param individuals the best individuals, best first
+   */
+  private record Entry(double[] weights, PlotEncoding encoding, long generation,
+      ISeq<Phenotype<IntegerGene, Double>> individuals) {
+  }
+
+  private static final String SAVE_SUFFIX = ".sav";
+  private static final String KEY_SUFFIX = ".properties";
+  private static final String WEIGHTS = "weights";
+  private static final String ENCODING = "encoding";
+  private static final String GARDEN = "garden";
+  // weights are rounded so that coefficients differing by rounding errors share the key
+  private static final double PRECISION = 1e9;
+
+  private final Settings settings;
+  private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+  // guarantee sequential access to the files
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(
+      Thread.ofVirtual().name("result-store-", 0).factory());
+
+  ResultStore(final Settings settings) {
+    this.settings = settings;
+    if (settings.enabled()) {
+      load();
+      Log.info(LOG_FQCN, "Loaded {0} stored results from {1}",
+          arr(entries.size(), settings.directory()), null);
+    }
+  }
+
+  /**
+   * Returns the coefficients divided by their sum, which determine the ranking of plots.
+   *
+   * @param coefficients the coefficients
+   * @return the normalized coefficients
+   */
+  static double[] weights(final FitnessCoefficients coefficients) {
+    final double[] values = FitnessCoefficients.values(coefficients);
+    final double sum = Arrays.stream(values).sum();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = Math.round(values[i] / sum * PRECISION) / PRECISION;
+    }
+    return values;
+  }
+
+  private static long key(final double[] weights, final PlotEncoding encoding) {
+    // the default garden has no fingerprint, so keys stored before gardens were configurable hold
+    return FitnessCoefficients.fingerprint(weights) ^ encoding.kind().ordinal()
+        ^ encoding.garden().fingerprint();
+  }
+
+  /**
+   * Returns the best individual stored for the given fitness function.
+   *
+   * @param coefficients the coefficients of the fitness function
+   * @param encoding the encoding of the genotypes
+   * @return the best individual, if any
+   */
+  public Optional<Phenotype<IntegerGene, Double>> best(final FitnessCoefficients coefficients,
+      final PlotEncoding encoding) {
+    return Optional.ofNullable(entries.get(key(weights(coefficients), encoding)))
+        .filter(entry -> matches(entry, encoding))
+        .flatMap(entry -> entry.individuals().stream().findFirst());
+  }
+
+  /**
+   * Returns the population to start a run from: the stored individuals of the given fitness
+   * function if any, otherwise those of the closest one, otherwise an empty population.
+   *
+   * @param coefficients the coefficients of the fitness function
+   * @param encoding the encoding of the genotypes
+   * @return the evolution start
+   */
+  public EvolutionStart<IntegerGene, Double> start(final FitnessCoefficients coefficients,
+      final PlotEncoding encoding) {
+    final double[] weights = weights(coefficients);
+    final Entry exact = entries.get(key(weights, encoding));
+    if (exact != null && matches(exact, encoding)) {
+      Log.debug(LOG_FQCN, "Resuming from {0} stored individuals at generation {1}",
+          arr(exact.individuals().size(), exact.generation()), null);
+      return EvolutionStart.of(exact.individuals(), exact.generation() + 1);
+    }
+    return entries.values().stream()
+        .filter(entry -> matches(entry, encoding))
+        .map(entry -> Map.entry(distance(weights, entry.weights()), entry))
+        .filter(candidate -> candidate.getKey() <= settings.warmStartDistance())
+        .min(Map.Entry.comparingByKey())
+        .map(closest -> {
+          Log.debug(LOG_FQCN, "Warm starting from individuals stored for weights {0} at "
+              + "distance {1}", arr(Arrays.toString(closest.getValue().weights()),
+              closest.getKey()), null);
+          // a different fitness function scored them, so they are evaluated again
+          return EvolutionStart.of(closest.getValue().individuals()
+              .map(individual -> Phenotype.<IntegerGene, Double>of(individual.genotype(), 1)), 1);
+        })
+        .orElseGet(SaveFormat::empty);
+  }
+
+  /**
+   * Checks if the individuals of an entry have the genotypes of an encoding, which is not implied
+   * by a matching key if two gardens happen to share a fingerprint.
+   */
+  private static boolean matches(final Entry entry, final PlotEncoding encoding) {
+    return entry.encoding().kind() == encoding.kind()
+        && entry.encoding().garden().equals(encoding.garden());
+  }
+
+  private static double distance(final double[] a, final double[] b) {
+    double sum = 0;
+    for (int i = 0; i < a.length; i++) {
+      sum += (a[i] - b[i]) * (a[i] - b[i]);
+    }
+    return Math.sqrt(sum);
+  }
+
+  /**
+   * Merges the best individuals of a run into those stored for its fitness function. Files are
+   * written in the background.
+   *
+   * @param coefficients the coefficients of the fitness function
+   * @param encoding the encoding of the genotypes
+   * @param generation the last generation evolved by the run
+   * @param individuals the individuals found by the run
+   */
+  public void store(final FitnessCoefficients coefficients, final PlotEncoding encoding,
+      final long generation, final Seq<Phenotype<IntegerGene, Double>> individuals) {
+    if (!settings.enabled()) {
+      return;
+    }
+    final double[] weights = weights(coefficients);
+    final long key = key(weights, encoding);
+    entries.compute(key, (k, previous) -> {
+      // individuals of another garden under the same key are replaced rather than merged
+      final boolean merged = previous != null && matches(previous, encoding);
+      final Stream<Phenotype<IntegerGene, Double>> stored = merged
+          ? previous.individuals().stream()
+          : Stream.empty();
+      final long last = !merged
+          ? generation
+          : Math.max(previous.generation(), generation);
+      return new Entry(weights, encoding, last, best(
+          Stream.concat(stored, individuals.stream())));
+    });
+    executor.execute(() -> save(key));
+  }
+
+  private ISeq<Phenotype<IntegerGene, Double>> best(
+      final Stream<Phenotype<IntegerGene, Double>> individuals) {
+    final Map<Genotype<IntegerGene>, Phenotype<IntegerGene, Double>> distinct = individuals
+        .filter(Phenotype::isEvaluated)
+        .sorted(Comparator.comparing(Phenotype<IntegerGene, Double>::fitness).reversed())
+        .collect(Collectors.toMap(Phenotype::genotype, individual -> individual,
+            (first, second) -> first, LinkedHashMap::new));
+    return distinct.values().stream().limit(settings.count()).collect(ISeq.toISeq());
+  }
+
+  private void load() {
+    try (final DirectoryStream<Path> keys = Files.newDirectoryStream(settings.directory(),
+        "*" + KEY_SUFFIX)) {
+      for (final Path file : keys) {
+        try {
+          final Entry entry = read(file);
+          entries.put(key(entry.weights(), entry.encoding()), entry);
+        } catch (final IOException | RuntimeException e) {
+          Log.warn(LOG_FQCN, "An exception prevented reading stored result {0}", arr(file), e);
+        }
+      }
+    } catch (final IOException e) {
+      Log.info(LOG_FQCN, "No stored results could be listed in {0}",
+          arr(settings.directory()), null);
+    }
+  }
+
+  private static Entry read(final Path file) throws IOException {
+    final Properties properties = new Properties();
+    try (final Reader reader = Files.newBufferedReader(file)) {
+      properties.load(reader);
+    }
+    final double[] weights = Arrays.stream(properties.getProperty(WEIGHTS).split(","))
+        .mapToDouble(Double::parseDouble)
+        .toArray();
+    final PlotEncoding encoding = PlotEncoding.of(
+        PlotEncoding.Kind.valueOf(properties.getProperty(ENCODING)),
+        Garden.parse(properties.getProperty(GARDEN, Garden.DEFAULT.toString())));
+    final String name = file.getFileName().toString();
+    final EvolutionStart<IntegerGene, Double> saved = SaveFormat.read(file.resolveSibling(
+        name.substring(0, name.length() - KEY_SUFFIX.length()) + SAVE_SUFFIX),
+        key(weights, encoding));
+    return new Entry(weights, encoding, saved.generation(), saved.population());
+  }
+
+  /**
+   * Writes the latest individuals of a key, first the save file through a temporary file and then
+   * its properties, so that a crash never leaves a partially written save file behind.
+   */
+  private void save(final long key) {
+    final Entry entry = entries.get(key);
+    final String name = "%016x".formatted(key);
+    final Path file = settings.directory().resolve(name + SAVE_SUFFIX);
+    final Path temp = file.resolveSibling(name + SAVE_SUFFIX + ".tmp");
+    try {
+      Files.createDirectories(settings.directory());
+      SaveFormat.write(temp, key, entry.generation(), entry.individuals());
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      final Properties properties = new Properties();
+      properties.setProperty(WEIGHTS, Arrays.stream(entry.weights())
+          .mapToObj(Double::toString)
+          .collect(Collectors.joining(",")));
+      properties.setProperty(ENCODING, entry.encoding().kind().name());
+      properties.setProperty(GARDEN, entry.encoding().garden().toString());
+      try (final Writer writer = Files.newBufferedWriter(
+          settings.directory().resolve(name + KEY_SUFFIX))) {
+        properties.store(writer, null);
+      }
+    } catch (final IOException e) {
+      Log.warn(LOG_FQCN, "An exception prevented storing result {0}", arr(file), e);
+    }
+  }
+
+  @PreDestroy
+  @Override
+  public void close() {
+    executor.close();
+  }
+}
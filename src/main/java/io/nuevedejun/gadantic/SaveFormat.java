@@ -0,0 +1,169 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.Seq;
+import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary save format of a population.
+ * <p>
+ * The file starts with a header, followed by one fixed-size record per individual:
+ * <pre>
+ * header:  magic "GDNT" (int) | version (short) | coefficients (long) | generation (long)
+ *          | count (int) | genes (int)
+ * record:  generation (long) | fitness (double, NaN if not evaluated) | genes (4 bits each)
+ * </pre>
+ * The coefficients field holds the {@link FitnessCoefficients#fingerprint(FitnessCoefficients)
+ * fingerprint} of the fitness function that scored the individuals. Version 1 files lack it, and
+ * their fitness values are never restored.
+ * Crop ordinals are below 16, so each byte packs two genes, the first one in the low nibble. All
+ * values are big-endian. Files are read through a memory mapping, decoding the genes straight into
+ * the chromosomes.
+ */
+final class SaveFormat {
+  /**
+   * Magic number at the start of every save file: "GDNT" in ASCII.
+   */
+  static final int MAGIC = 0x47444E54;
+  /**
+   * Version of the format written by this class.
+   */
+  static final short VERSION = 2;
+
+  private static final short VERSION_WITHOUT_COEFFICIENTS = 1;
+  private static final int PREFIX_BYTES = Integer.BYTES + Short.BYTES;
+  private static final int HEADER_BYTES = PREFIX_BYTES + Long.BYTES + Long.BYTES
+      + Integer.BYTES + Integer.BYTES;
+
+  private SaveFormat() {throw new UnsupportedOperationException("do not instantiate");}
+
+  private static int recordBytes(final int genes) {
+    return Long.BYTES + Double.BYTES + (genes + 1) / 2;
+  }
+
+  /**
+   * Writes the individuals to the given file, replacing its content.
+   *
+   * @param file the target file
+   * @param coefficients the fingerprint of the fitness function that scored the individuals
+   * @param generation the generation of the population
+   * @param individuals the individuals to save, all of the same length
+   * @throws IOException if the file cannot be written
+   */
+  static void write(final Path file, final long coefficients, final long generation,
+      final Seq<Phenotype<IntegerGene, Double>> individuals) throws IOException {
+    final int genes = individuals.isEmpty()
+        ? 0
+        : individuals.get(0).genotype().chromosome().length();
+    final ByteBuffer buffer = ByteBuffer.allocate(
+        HEADER_BYTES + individuals.size() * recordBytes(genes));
+    buffer.putInt(MAGIC)
+        .putShort(VERSION)
+        .putLong(coefficients)
+        .putLong(generation)
+        .putInt(individuals.size())
+        .putInt(genes);
+    final int[] alleles = new int[genes];
+    for (final var individual : individuals) {
+      buffer.putLong(individual.generation())
+          .putDouble(individual.fitnessOptional().orElse(Double.NaN));
+      individual.genotype().chromosome().as(IntegerChromosome.class).toArray(alleles);
+      for (int i = 0; i < genes; i += 2) {
+        final int high = i + 1 < genes ? alleles[i + 1] : 0;
+        buffer.put((byte) (high << 4 | alleles[i]));
+      }
+    }
+    buffer.flip();
+    try (final var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * Reads the individuals saved in the given file. Their fitness is restored only if it was
+   * produced by the given fitness function; otherwise they are left to be evaluated again.
+   *
+   * @param file the source file
+   * @param coefficients the fingerprint of the current fitness function
+   * @return the saved population and generation
+   * @throws IOException if the file cannot be read or is not in this format
+   */
+  static EvolutionStart<IntegerGene, Double> read(final Path file, final long coefficients)
+      throws IOException {
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size < PREFIX_BYTES) {
+        throw new IOException("File is too short to be a save file: " + size + " bytes");
+      }
+      final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      final int magic = buffer.getInt();
+      final short version = buffer.getShort();
+      if (magic != MAGIC || version != VERSION && version != VERSION_WITHOUT_COEFFICIENTS) {
+        throw new IOException("Unsupported save format: magic " + Integer.toHexString(magic)
+            + ", version " + version);
+      }
+      final int header = version == VERSION ? HEADER_BYTES : HEADER_BYTES - Long.BYTES;
+      if (size < header) {
+        throw new IOException("Save file is truncated or corrupted");
+      }
+      final boolean scored = version == VERSION && buffer.getLong() == coefficients;
+      final long generation = buffer.getLong();
+      final int count = buffer.getInt();
+      final int genes = buffer.getInt();
+      if (count < 0 || genes < 0 || size != header + (long) count * recordBytes(genes)) {
+        throw new IOException("Save file is truncated or corrupted");
+      }
+
+      final MSeq<Phenotype<IntegerGene, Double>> individuals = MSeq.ofLength(count);
+      final IntegerGene[] alleles = new IntegerGene[genes];
+      for (int i = 0; i < count; i++) {
+        final long born = buffer.getLong();
+        final double fitness = buffer.getDouble();
+        for (int j = 0; j < genes; j += 2) {
+          final int packed = buffer.get();
+          alleles[j] = gene(packed & 0xF);
+          if (j + 1 < genes) {
+            alleles[j + 1] = gene(packed >> 4 & 0xF);
+          }
+        }
+        final var genotype = Genotype.of(IntegerChromosome.of(alleles));
+        individuals.set(i, scored && !Double.isNaN(fitness)
+            ? Phenotype.of(genotype, born, fitness)
+            : Phenotype.of(genotype, born));
+      }
+      return EvolutionStart.of(individuals.toISeq(), generation);
+    }
+  }
+
+  private static IntegerGene gene(final int ordinal) throws IOException {
+    if (ordinal >= Crop.len()) {
+      throw new IOException("Invalid crop ordinal in save file: " + ordinal);
+    }
+    return IntegerGene.of(ordinal, 0, Crop.len());
+  }
+
+  /**
+   * Returns an empty population at the first generation.
+   *
+   * @return the empty start
+   */
+  static EvolutionStart<IntegerGene, Double> empty() {
+    return EvolutionStart.of(ISeq.empty(), 1);
+  }
+}
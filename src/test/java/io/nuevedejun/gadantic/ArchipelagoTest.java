@@ -0,0 +1,113 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.util.ISeq;
+import io.nuevedejun.gadantic.GeneticProperties.Islands.Topology;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.argumentSet;
+
+class ArchipelagoTest {
+
+  private final Engine<IntegerGene, Double> engine = Engine
+      .builder(
+          (final Genotype<IntegerGene> g) ->
+              (double) g.chromosome().as(IntegerChromosome.class).intStream().sum(),
+          Genotype.of(IntegerChromosome.of(0, 15, 81)))
+      .populationSize(10)
+      .build();
+
+  private static GeneticProperties properties(final Topology topology) {
+    return new SmallRyeConfigBuilder()
+        .withMapping(GeneticProperties.class)
+        .withDefaultValue("ga.islands.count", "3")
+        .withDefaultValue("ga.islands.migration-interval", "4")
+        .withDefaultValue("ga.islands.migrants", "2")
+        .withDefaultValue("ga.islands.topology", topology.name())
+        .build().getConfigMapping(GeneticProperties.class);
+  }
+
+  /**
+   * Island {@code i} holds individuals with fitness {@code 10 * i} to {@code 10 * i + 4}.
+   */
+  private static List<ISeq<Phenotype<IntegerGene, Double>>> islands() {
+    final var factory = Genotype.of(IntegerChromosome.of(0, 15, 81));
+    return IntStream.range(0, 3)
+        .mapToObj(i -> IntStream.range(0, 5)
+            .mapToObj(j -> Phenotype.<IntegerGene, Double>of(factory.newInstance(), 1, 10.0 * i + j))
+            .collect(ISeq.toISeq()))
+        .toList();
+  }
+
+  static Stream<Arguments> testMigrate() {
+    return Stream.of(
+        argumentSet("ring", Topology.RING, List.of(
+            List.of(4.0, 3.0, 2.0, 24.0, 23.0),
+            List.of(14.0, 13.0, 12.0, 4.0, 3.0),
+            List.of(24.0, 23.0, 22.0, 14.0, 13.0))),
+        argumentSet("fully connected", Topology.FULLY_CONNECTED, List.of(
+            List.of(4.0, 14.0, 13.0, 24.0, 23.0),
+            List.of(14.0, 4.0, 3.0, 24.0, 23.0),
+            List.of(24.0, 4.0, 3.0, 14.0, 13.0))));
+  }
+
+  @ParameterizedTest
+  @MethodSource
+  void testMigrate(final Topology topology, final List<List<Double>> expected) {
+    try (final var archipelago = new Archipelago(engine, properties(topology))) {
+      final var migrated = archipelago.migrate(islands());
+
+      assertEquals(expected, migrated.stream()
+          .map(population -> population.stream().map(Phenotype::fitness).toList())
+          .toList());
+    }
+  }
+
+  @Test
+  void testStream() {
+    final List<EvolutionResult<IntegerGene, Double>> results;
+    try (final var archipelago = new Archipelago(engine, properties(Topology.RING))) {
+      results = archipelago.stream(EvolutionStart.empty()).limit(10).toList();
+    }
+
+    assertEquals(10, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i + 1, results.get(i).generation());
+      assertEquals(30, results.get(i).population().size());
+    }
+  }
+
+  @Test
+  void testStopped() {
+    final AtomicInteger checks = new AtomicInteger();
+    final List<EvolutionResult<IntegerGene, Double>> results;
+    try (final var archipelago = new Archipelago(engine, properties(Topology.RING))) {
+      results = archipelago.stream(EvolutionStart.empty(), () -> checks.incrementAndGet() > 0)
+          .limit(3).toList();
+    }
+
+    // every island checks once after its first generation, so each epoch is a single generation
+    assertEquals(9, checks.get());
+    assertEquals(3, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i + 1, results.get(i).generation());
+      assertEquals(30, results.get(i).population().size());
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package io.nuevedejun.gadantic;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitboardTest {
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 63, 64, 80, 127})
+  void testTile(final int tile) {
+    final Bitboard board = Bitboard.tile(tile);
+
+    assertEquals(1, board.count());
+    for (int other = 0; other < Garden.MAX_TILES; other++) {
+      assertEquals(other == tile, board.has(other), "tile " + other);
+    }
+    assertTrue(board.or(Bitboard.tile(tile ^ 1)).containsAll(board));
+    assertFalse(board.containsAll(Bitboard.tile(tile ^ 1)));
+    assertTrue(board.xor(board).isEmpty());
+  }
+}
@@ -0,0 +1,81 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Optimize;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionDurations;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.util.ISeq;
+import io.nuevedejun.gadantic.EvolutionLimit.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.InstantSource;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EvolutionLimitTest {
+
+  private static final Genotype<IntegerGene> GENOTYPE =
+      Genotype.of(IntegerChromosome.of(0, 15, 81));
+
+  private static EvolutionResult<IntegerGene, Double> result(final double best) {
+    return EvolutionResult.of(Optimize.MAXIMUM, ISeq.of(Phenotype.of(GENOTYPE, 1, best)), 1,
+        EvolutionDurations.ZERO, 0, 0, 0);
+  }
+
+  /**
+   * Returns the number of generations checked until the limit is reached.
+   */
+  private static int generations(final EvolutionLimit limit, final double... fitness) {
+    for (int i = 0; i < fitness.length; i++) {
+      if (limit.test(result(fitness[i]))) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  @Test
+  void testRules() {
+    assertEquals(3, generations(EvolutionLimit.generations(3), 1, 1, 1, 1));
+    assertEquals(5, generations(EvolutionLimit.steadyFitness(2), 1, 2, 3, 3, 2, 4));
+    assertEquals(3, generations(EvolutionLimit.targetFitness(5), 1, 4, 5, 6));
+    // from 10 to 10.05 is less than 1% over two generations
+    assertEquals(5, generations(EvolutionLimit.convergence(2, 0.01), 1, 5, 10, 10.05, 10.05));
+    assertEquals(-1, generations(EvolutionLimit.none(), 1, 1, 1, 1));
+  }
+
+  @Test
+  void testTimeLimit() {
+    final AtomicReference<Instant> now = new AtomicReference<>(Instant.EPOCH);
+    final InstantSource clock = now::get;
+    final EvolutionLimit limit = EvolutionLimit.timeLimit(Duration.ofSeconds(10), clock);
+
+    now.set(Instant.EPOCH.plusSeconds(9));
+    assertFalse(limit.test(result(1)));
+    now.set(Instant.EPOCH.plusSeconds(10));
+    assertTrue(limit.test(result(1)));
+    assertEquals(Optional.of(Rule.TIME_LIMIT), limit.reached());
+  }
+
+  @Test
+  void testFirstReachedRule() {
+    final EvolutionLimit limit = EvolutionLimit.generations(5)
+        .or(EvolutionLimit.steadyFitness(2))
+        .or(EvolutionLimit.targetFitness(3));
+
+    assertEquals(4, generations(limit, 1, 2, 2, 2, 3));
+    assertEquals(Optional.of(Rule.STEADY_FITNESS), limit.reached());
+    // the reported rule does not change once reached
+    assertTrue(limit.test(result(3)));
+    assertEquals(Optional.of(Rule.STEADY_FITNESS), limit.reached());
+  }
+}
@@ -0,0 +1,50 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.Optimize;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionDurations;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.util.ISeq;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EvolutionMetricsTest {
+
+  @Test
+  void testRecord() {
+    final var registry = new SimpleMeterRegistry();
+    final var constraint = new PlotConstraint(new PrioritizedShuffler());
+    final var metrics = new EvolutionMetrics(registry, constraint);
+
+    final var genotype = Genotype.of(IntegerChromosome.of(0, 15, 81));
+    // two copies of the same genotype: half of the population is distinct
+    final var population = ISeq.of(
+        Phenotype.of(genotype, 2, 0.5), Phenotype.of(genotype, 2, 0.25),
+        Phenotype.of(genotype.newInstance(), 2, 0.75), Phenotype.of(genotype, 1, 0.5));
+    final var durations = new EvolutionDurations(Duration.ofMillis(1), Duration.ofMillis(2),
+        Duration.ofMillis(3), Duration.ofMillis(4), Duration.ofMillis(5), Duration.ofMillis(6),
+        Duration.ofMillis(21));
+    metrics.record(EvolutionResult.of(Optimize.MAXIMUM, population, 2, durations, 1, 2, 3));
+    metrics.record(EvolutionResult.of(Optimize.MAXIMUM, population, 3, durations, 0, 0, 0));
+    population.forEach(constraint::test);
+
+    assertEquals(2, registry.counter("gadantic.generations").count());
+    assertEquals(1, registry.counter("gadantic.individuals", "outcome", "killed").count());
+    assertEquals(2, registry.counter("gadantic.individuals", "outcome", "invalid").count());
+    assertEquals(3, registry.counter("gadantic.individuals", "outcome", "altered").count());
+    assertEquals(6, registry.get("gadantic.phase").tag("phase", "altering").timer()
+        .totalTime(TimeUnit.MILLISECONDS));
+    assertEquals(42, registry.get("gadantic.phase").tag("phase", "evolve").timer()
+        .totalTime(TimeUnit.MILLISECONDS));
+    assertEquals(0.5, registry.get("gadantic.diversity").summary().mean());
+    assertEquals(0.75, registry.get("gadantic.best").summary().max());
+    assertEquals(4, registry.get("gadantic.constraint.tested").functionCounter().count());
+  }
+}
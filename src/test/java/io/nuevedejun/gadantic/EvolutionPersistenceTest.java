@@ -10,6 +10,10 @@
 import io.jenetics.engine.EvolutionResult;
 import io.jenetics.engine.EvolutionStart;
 import io.jenetics.util.ISeq;
+import io.jenetics.util.RandomRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.smallrye.config.SmallRyeConfigBuilder;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -19,10 +23,16 @@
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class EvolutionPersistenceTest {
 
+  private static final FitnessCoefficients COEFFICIENTS = coefficients("1.0");
+  private static final PlotEncoding DIRECT = PlotEncoding.of(PlotEncoding.Kind.DIRECT);
+  private static final EvolutionMetrics METRICS = new EvolutionMetrics(
+      new SimpleMeterRegistry(), new PlotConstraint(new PrioritizedShuffler()));
+
   @TempDir
   Path temp;
 
@@ -38,7 +48,7 @@ void testPersistence() {
     final EvolutionStart<IntegerGene, Double> result;
     try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(
         temp.resolve("gadantic.sav"),
-        new MonteCarloSelector<>(), 10)) {
+        new MonteCarloSelector<>(), 10, 0, 0, 2, COEFFICIENTS, DIRECT, METRICS)) {
       persistence.write(evolution);
       result = persistence.read();
     }
@@ -61,12 +71,111 @@ private List<Integer> geneList(final Phenotype<IntegerGene, Double> phenotype) {
         .boxed().toList();
   }
 
+  @Test
+  void testWholePopulation() {
+    final var evolution = result(7);
+
+    final EvolutionStart<IntegerGene, Double> result;
+    try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(
+        temp.resolve("gadantic.sav"), new MonteCarloSelector<>(), -1, 0, 0, 2, COEFFICIENTS,
+        DIRECT, METRICS)) {
+      persistence.write(evolution);
+      result = persistence.read();
+    }
+
+    assertEquals(7, result.generation());
+    assertEquals(evolution.population().map(this::geneList),
+        result.population().map(this::geneList));
+  }
+
+  @Test
+  void testFitnessRestored() {
+    final Path source = temp.resolve("gadantic.sav");
+    final var evolution = result(3);
+
+    final EvolutionStart<IntegerGene, Double> same;
+    final EvolutionStart<IntegerGene, Double> changed;
+    final EvolutionStart<IntegerGene, Double> reencoded;
+    try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(source,
+        new MonteCarloSelector<>(), -1, 0, 0, 2, COEFFICIENTS, DIRECT, METRICS)) {
+      persistence.write(evolution);
+      same = persistence.read();
+    }
+    try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(source,
+        new MonteCarloSelector<>(), -1, 0, 0, 2, coefficients("2.0"), DIRECT, METRICS)) {
+      changed = persistence.read();
+    }
+    try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(source,
+        new MonteCarloSelector<>(), -1, 0, 0, 2, COEFFICIENTS,
+        PlotEncoding.of(PlotEncoding.Kind.GREEDY), METRICS)) {
+      reencoded = persistence.read();
+    }
+
+    assertEquals(evolution.population().map(Phenotype::fitness),
+        same.population().map(Phenotype::fitness));
+    assertTrue(changed.population().forAll(Phenotype::nonEvaluated));
+    assertTrue(reencoded.population().forAll(Phenotype::nonEvaluated));
+  }
+
+  @Test
+  void testCheckpoint() {
+    final Path source = temp.resolve("gadantic.sav");
+
+    try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(source,
+        new MonteCarloSelector<>(), 10, 5, 0, 2, COEFFICIENTS, DIRECT, METRICS)) {
+      for (int generation = 1; generation <= 4; generation++) {
+        persistence.checkpoint(result(generation));
+      }
+      // nothing is due before the fifth generation
+      assertFalse(Files.exists(source));
+      for (int generation = 5; generation <= 20; generation++) {
+        persistence.checkpoint(result(generation));
+      }
+    }
+
+    final EvolutionStart<IntegerGene, Double> result;
+    try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(source,
+        new MonteCarloSelector<>(), 10, 5, 0, 2, COEFFICIENTS, DIRECT, METRICS)) {
+      result = persistence.read();
+    }
+    // checkpoints may be skipped while a previous one is being written, but never the latest
+    assertEquals(20, result.generation());
+    assertFalse(Files.exists(temp.resolve("gadantic.sav.tmp")));
+  }
+
+  @Test
+  void testRotation() throws IOException {
+    final Path source = temp.resolve("gadantic.sav");
+
+    try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(source,
+        new MonteCarloSelector<>(), 10, 0, 0, 2, COEFFICIENTS, DIRECT, METRICS)) {
+      for (int generation = 1; generation <= 4; generation++) {
+        persistence.write(result(generation));
+      }
+    }
+
+    assertTrue(Files.exists(temp.resolve("gadantic.sav.1")));
+    assertTrue(Files.exists(temp.resolve("gadantic.sav.2")));
+    assertFalse(Files.exists(temp.resolve("gadantic.sav.3")));
+
+    // a corrupted save file falls back to the latest backup
+    Files.write(source, new byte[0]);
+    final EvolutionStart<IntegerGene, Double> result;
+    try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(source,
+        new MonteCarloSelector<>(), 10, 0, 0, 2, COEFFICIENTS, DIRECT, METRICS)) {
+      result = persistence.read();
+    }
+
+    assertEquals(3, result.generation());
+    assertEquals(10, result.population().size());
+  }
+
   @Test
   void testPersistenceNoFilePresent() {
     final EvolutionStart<IntegerGene, Double> result;
     try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(
         temp.resolve("gadantic.sav"),
-        new MonteCarloSelector<>(), 10)) {
+        new MonteCarloSelector<>(), 10, 0, 0, 2, COEFFICIENTS, DIRECT, METRICS)) {
       result = persistence.read();
     }
 
@@ -80,10 +189,25 @@ void testPersistenceFileBadFormat() throws IOException {
 
     final EvolutionStart<IntegerGene, Double> result;
     try (final EvolutionPersistence.File persistence = new EvolutionPersistence.File(source,
-        new MonteCarloSelector<>(), 10)) {
+        new MonteCarloSelector<>(), 10, 0, 0, 2, COEFFICIENTS, DIRECT, METRICS)) {
       result = persistence.read();
     }
 
     assertEquals(0, result.population().size());
   }
+
+  private static EvolutionResult<IntegerGene, Double> result(final long generation) {
+    final var population = Genotype.of(IntegerChromosome.of(0, 15, 81)).instances().limit(20)
+        .map(g -> Phenotype.of(g, 1, RandomRegistry.random().nextDouble()))
+        .collect(ISeq.toISeq());
+    return EvolutionResult.of(
+        Optimize.MAXIMUM, population, generation, EvolutionDurations.ZERO, 0, 0, 0);
+  }
+
+  private static FitnessCoefficients coefficients(final String uniqueCrops) {
+    return new SmallRyeConfigBuilder()
+        .withMapping(FitnessCoefficients.class)
+        .withDefaultValue("fitness.unique-crops", uniqueCrops)
+        .build().getConfigMapping(FitnessCoefficients.class);
+  }
 }
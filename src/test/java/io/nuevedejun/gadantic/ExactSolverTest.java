@@ -0,0 +1,115 @@
+package io.nuevedejun.gadantic;
+
+import io.nuevedejun.gadantic.PlotDecoder.Kernel;
+import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExactSolverTest {
+
+  /** One crop of each perk. */
+  private static final int[] CROPS = {
+      Crop.TOMATOES.ordinal(), Crop.RICE.ordinal(), Crop.CARROTS.ordinal(),
+      Crop.COTTON.ordinal()};
+
+  private static final FitnessCoefficients COEFFICIENTS = new SmallRyeConfigBuilder()
+      .withMapping(FitnessCoefficients.class)
+      .withDefaultValue("fitness.quality-boost", "2.0")
+      .withDefaultValue("fitness.horizontal-symmetry", "0.5")
+      .withDefaultValue("fitness.rotational-symmetry", "0.5")
+      .build().getConfigMapping(FitnessCoefficients.class);
+
+  private final ForkJoinPool pool = new ForkJoinPool(2);
+
+  @AfterEach
+  void closePool() {
+    pool.close();
+  }
+
+  private ExactSolver solver(final long maxNodes) {
+    return new ExactSolver(COEFFICIENTS, new SmallRyeConfigBuilder()
+        .withMapping(ExactSolver.Settings.class)
+        .withDefaultValue("solver.max-nodes", String.valueOf(maxNodes))
+        .build().getConfigMapping(ExactSolver.Settings.class), pool);
+  }
+
+  /** Single-tile crops, with apples on the upper left corner and beans on the lower right. */
+  private static int[] plot() {
+    final int[] plot = new int[Garden.DEFAULT.tiles()];
+    for (int tile = 0; tile < plot.length; tile++) {
+      plot[tile] = tile % 10;
+    }
+    plot[0] = Crop.APPLES.ordinal();
+    plot[6 + 6 * 9] = Crop.BEANS.ordinal();
+    return plot;
+  }
+
+  private static double fitness(final int[] plot) {
+    return PlotPhenotype.Impl.score(COEFFICIENTS, PlotPhenotype.Impl.normalize(COEFFICIENTS),
+        new Kernel().evaluate(plot));
+  }
+
+  @Test
+  void testOptimum() {
+    final int[] plot = plot();
+    // the window overlaps the apples, which stay, and holds 8 single-tile crops
+    final int[] free = {3 + 2 * 9, 4 + 2 * 9, 2 + 3 * 9, 3 + 3 * 9, 4 + 3 * 9, 2 + 4 * 9,
+        3 + 4 * 9, 4 + 4 * 9};
+    double best = 0;
+    final int[] candidate = plot.clone();
+    for (int combination = 0; combination < 1 << 2 * free.length; combination++) {
+      for (int i = 0; i < free.length; i++) {
+        candidate[free[i]] = CROPS[combination >> 2 * i & 3];
+      }
+      best = Math.max(best, fitness(candidate));
+    }
+
+    final var solution = solver(Long.MAX_VALUE).solve(plot, new ExactSolver.Window(2, 2, 3, 3),
+        CROPS);
+
+    assertTrue(solution.exact());
+    assertEquals(best, solution.fitness(), 1e-12);
+    assertEquals(solution.fitness(), fitness(solution.plot()));
+    assertTrue(solution.bound() >= solution.fitness());
+    assertTrue(solution.nodes() < 1 << 2 * free.length, "The search was not pruned");
+    for (int tile = 0; tile < plot.length; tile++) {
+      final int current = tile;
+      if (Arrays.stream(free).noneMatch(f -> f == current)) {
+        assertEquals(plot[tile], solution.plot()[tile]);
+      }
+    }
+  }
+
+  @Test
+  void testNodeBudget() {
+    final int[] plot = plot();
+
+    final var solution = solver(1).solve(plot, new ExactSolver.Window(3, 3, 4, 4),
+        ExactSolver.singleTileCrops());
+
+    assertFalse(solution.exact());
+    assertTrue(solution.fitness() >= fitness(plot));
+    assertTrue(solution.bound() >= solution.fitness());
+  }
+
+  @Test
+  void testInvalidCrops() {
+    final var solver = solver(1);
+    final int[] plot = plot();
+    final var window = new ExactSolver.Window(0, 0, 3, 3);
+    final int[] crops = {Crop.PUMPKINS.ordinal()};
+    assertThrows(IllegalArgumentException.class, () -> solver.solve(plot, window, crops));
+    final var outside = new ExactSolver.Window(7, 7, 3, 3);
+    assertThrows(IllegalArgumentException.class, () -> solver.solve(plot, outside, CROPS));
+  }
+}
@@ -0,0 +1,116 @@
+package io.nuevedejun.gadantic;
+
+import io.nuevedejun.gadantic.FitnessCache.Settings.Eviction;
+import io.nuevedejun.gadantic.PlotDecoder.Layout;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.params.provider.Arguments.argumentSet;
+
+class FitnessCacheTest {
+
+  private final List<Layout> scored = new ArrayList<>();
+
+  private static FitnessCache cache(final int size, final Eviction eviction) {
+    return new FitnessCache(new SmallRyeConfigBuilder()
+        .withMapping(FitnessCache.Settings.class)
+        .withDefaultValue("fitness-cache.size", String.valueOf(size))
+        .withDefaultValue("fitness-cache.eviction", eviction.name())
+        .build().getConfigMapping(FitnessCache.Settings.class));
+  }
+
+  private static Layout layout(final long value) {
+    return new Layout(new long[]{value, 0, 0, 0, 0, 0});
+  }
+
+  private double score(final Layout layout) {
+    scored.add(layout);
+    return layout.words()[0];
+  }
+
+  static Stream<Arguments> testEviction() {
+    // with two slots, touching the first layout before inserting the third one keeps it under LRU
+    return Stream.of(
+        argumentSet("lru", Eviction.LRU, List.of(1L, 2L, 3L, 2L)),
+        argumentSet("fifo", Eviction.FIFO, List.of(1L, 2L, 3L, 1L, 2L)));
+  }
+
+  @ParameterizedTest
+  @MethodSource
+  void testEviction(final Eviction eviction, final List<Long> expected) {
+    final FitnessCache cache = cache(2, eviction);
+
+    for (final long value : new long[]{1, 2, 1, 3, 1, 2}) {
+      assertEquals(value, cache.get(layout(value), this::score));
+    }
+
+    assertEquals(expected.stream().map(FitnessCacheTest::layout).toList(), scored);
+    final FitnessCache.Stats stats = cache.stats();
+    assertEquals(6 - expected.size(), stats.hits());
+    assertEquals(expected.size(), stats.misses());
+    assertEquals(2, stats.size());
+    assertEquals(1.0, stats.hitRatio() + stats.missRatio(), 1e-9);
+  }
+
+  @Test
+  void testDisabled() {
+    final FitnessCache cache = cache(0, Eviction.LRU);
+
+    cache.get(layout(1), this::score);
+    cache.get(layout(1), this::score);
+
+    assertFalse(cache.enabled());
+    assertEquals(List.of(layout(1), layout(1)), scored);
+    assertEquals(new FitnessCache.Stats(0, 2, 0), cache.stats());
+  }
+
+  @Test
+  void testConcurrentMiss() throws Exception {
+    final FitnessCache cache = cache(16, Eviction.LRU);
+    final AtomicInteger scorings = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<Double>> results = new ArrayList<>();
+
+    try (final var executor = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return cache.get(layout(7), layout -> {
+            scorings.incrementAndGet();
+            sleep();
+            return layout.words()[0];
+          });
+        }));
+      }
+      start.countDown();
+      for (final var result : results) {
+        assertEquals(7, result.get());
+      }
+    }
+
+    // the threads missing together wait for the one scoring the layout
+    assertEquals(1, scorings.get());
+    assertEquals(new FitnessCache.Stats(7, 1, 1), cache.stats());
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(50);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
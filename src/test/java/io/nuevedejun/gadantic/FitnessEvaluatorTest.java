@@ -0,0 +1,177 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.util.ISeq;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuevedejun.gadantic.GeneticProperties.Evaluation.Strategy;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FitnessEvaluatorTest {
+
+  /**
+   * Stub phenotype whose fitness is the sum of the genes.
+   */
+  final PlotPhenotype plotPhenotype = new PlotPhenotype() {
+    @Override
+    public Genotype<IntegerGene> encoding() {
+      return Genotype.of(IntegerChromosome.of(0, 15, 81));
+    }
+
+    @Override
+    public double fitness(final Genotype<IntegerGene> genotype) {
+      return genotype.chromosome().as(IntegerChromosome.class).intStream().sum();
+    }
+  };
+
+  @ParameterizedTest
+  @EnumSource(Strategy.class)
+  void testEval(final Strategy strategy) {
+    final var properties = new SmallRyeConfigBuilder()
+        .withMapping(GeneticProperties.class)
+        .withDefaultValue("ga.evaluation.strategy", strategy.name())
+        .withDefaultValue("ga.evaluation.batch-size", "7")
+        .build().getConfigMapping(GeneticProperties.class);
+    final var evaluated = Phenotype.<IntegerGene, Double>of(
+        plotPhenotype.encoding().newInstance(), 1, -1.0);
+    final var population = plotPhenotype.encoding().instances().limit(50)
+        .map(g -> Phenotype.<IntegerGene, Double>of(g, 1))
+        .collect(ISeq.toISeq())
+        .append(ISeq.of(evaluated));
+
+    final ISeq<Phenotype<IntegerGene, Double>> result;
+    final var registry = new SimpleMeterRegistry();
+    final var metrics = new EvolutionMetrics(registry,
+        new PlotConstraint(new PrioritizedShuffler()));
+    try (final var evaluator = new FitnessEvaluator(plotPhenotype, properties, metrics)) {
+      result = evaluator.eval(population);
+    }
+
+    assertEquals(population.size(), result.size());
+    for (int i = 0; i < population.size() - 1; i++) {
+      assertEquals(population.get(i).genotype(), result.get(i).genotype());
+      assertEquals(plotPhenotype.fitness(population.get(i).genotype()), result.get(i).fitness());
+    }
+    // already evaluated individuals are left untouched
+    assertEquals(-1.0, result.get(population.size() - 1).fitness());
+    assertEquals(population.size() - 1, registry.counter("gadantic.evaluations").count());
+  }
+
+  @Test
+  void testBlockingFallback() {
+    final var properties = new SmallRyeConfigBuilder()
+        .withMapping(GeneticProperties.class)
+        .withDefaultValue("ga.evaluation.strategy", Strategy.BLOCKING.name())
+        .withDefaultValue("ga.evaluation.max-concurrency", "3")
+        .withDefaultValue("ga.evaluation.timeout-millis", "200")
+        .withDefaultValue("ga.evaluation.fallback-fitness", "-1.0")
+        .build().getConfigMapping(GeneticProperties.class);
+    final var running = new AtomicInteger();
+    final var peak = new AtomicInteger();
+    // blocks for a while, and fails or never returns depending on the first gene
+    final PlotPhenotype blocking = new PlotPhenotype() {
+      @Override
+      public Genotype<IntegerGene> encoding() {
+        return plotPhenotype.encoding();
+      }
+
+      @Override
+      public double fitness(final Genotype<IntegerGene> genotype) {
+        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(switch (genotype.gene().allele()) {
+            case 0 -> throw new IllegalStateException("scoring service unavailable");
+            case 1 -> 60_000;
+            default -> 10;
+          });
+          return plotPhenotype.fitness(genotype);
+        } catch (final InterruptedException e) {
+          throw new IllegalStateException(e);
+        } finally {
+          running.decrementAndGet();
+        }
+      }
+    };
+    final int[] stuck = new int[81];
+    stuck[0] = 1;
+    final var population = plotPhenotype.encoding().instances().limit(30)
+        .map(g -> Phenotype.<IntegerGene, Double>of(g, 1))
+        .collect(ISeq.toISeq())
+        .append(ISeq.of(PlotCodec.encode(new int[81]), PlotCodec.encode(stuck)));
+
+    final ISeq<Phenotype<IntegerGene, Double>> result;
+    final var registry = new SimpleMeterRegistry();
+    final var metrics = new EvolutionMetrics(registry,
+        new PlotConstraint(new PrioritizedShuffler()));
+    try (final var evaluator = new FitnessEvaluator(blocking, properties, metrics)) {
+      result = evaluator.eval(population);
+    }
+
+    int fallbacks = 0;
+    for (int i = 0; i < population.size(); i++) {
+      final var genotype = population.get(i).genotype();
+      if (genotype.gene().allele() < 2) {
+        assertEquals(-1.0, result.get(i).fitness());
+        fallbacks++;
+      } else {
+        assertEquals(plotPhenotype.fitness(genotype), result.get(i).fitness());
+      }
+    }
+    assertEquals(fallbacks, registry.counter("gadantic.evaluations.fallback").count());
+    assertTrue(peak.get() <= 3, "peak concurrency " + peak.get());
+  }
+
+  @Test
+  void testBlockingError() {
+    final var properties = new SmallRyeConfigBuilder()
+        .withMapping(GeneticProperties.class)
+        .withDefaultValue("ga.evaluation.strategy", Strategy.BLOCKING.name())
+        .withDefaultValue("ga.evaluation.timeout-millis", "0")
+        .withDefaultValue("ga.evaluation.fallback-fitness", "-1.0")
+        .build().getConfigMapping(GeneticProperties.class);
+    // errors on the first gene, which no timeout would rescue from
+    final PlotPhenotype failing = new PlotPhenotype() {
+      @Override
+      public Genotype<IntegerGene> encoding() {
+        return plotPhenotype.encoding();
+      }
+
+      @Override
+      public double fitness(final Genotype<IntegerGene> genotype) {
+        if (genotype.gene().allele() == 0) {
+          throw new AssertionError("corrupted plot");
+        }
+        return plotPhenotype.fitness(genotype);
+      }
+    };
+    final int[] plot = new int[81];
+    Arrays.fill(plot, 1);
+    final var population = ISeq.of(PlotCodec.encode(new int[81]), PlotCodec.encode(plot));
+
+    final ISeq<Phenotype<IntegerGene, Double>> result;
+    final var registry = new SimpleMeterRegistry();
+    final var metrics = new EvolutionMetrics(registry,
+        new PlotConstraint(new PrioritizedShuffler()));
+    try (final var evaluator = new FitnessEvaluator(failing, properties, metrics)) {
+      result = assertTimeoutPreemptively(Duration.ofSeconds(10),
+          () -> evaluator.eval(population));
+    }
+
+    assertEquals(-1.0, result.get(0).fitness());
+    assertEquals(plotPhenotype.fitness(population.get(1).genotype()), result.get(1).fitness());
+    assertEquals(1, registry.counter("gadantic.evaluations.fallback").count());
+  }
+}
@@ -0,0 +1,179 @@
+package io.nuevedejun.gadantic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.params.provider.Arguments.argumentSet;
+
+class GardenTest {
+
+  private static final Garden MASKED = Garden.of(7, 5, List.of(
+      "..###..",
+      ".#####.",
+      "#######",
+      ".#####.",
+      "..###.."));
+
+  static Stream<Garden> gardens() {
+    return Stream.of(Garden.DEFAULT, Garden.of(7, 11, List.of()), Garden.of(8, 8, List.of()),
+        Garden.of(11, 11, List.of()), Garden.of(4, 3, List.of()), MASKED);
+  }
+
+  /**
+   * Moves of a tile {@code (x, y)} of a garden of the given width and height.
+   */
+  private interface Move {
+    int[] apply(int x, int y, int width, int height);
+  }
+
+  private static Arguments args(final Garden garden, final String name,
+      final BiFunction<Garden, Bitboard, Bitboard> transform, final Move move) {
+    return argumentSet(garden + " " + name, garden, transform, move);
+  }
+
+  static Stream<Arguments> testTransform() {
+    return gardens().flatMap(garden -> Stream.of(
+        args(garden, "north", Garden::north, (x, y, w, h) -> new int[]{x, y - 1}),
+        args(garden, "south", Garden::south, (x, y, w, h) -> new int[]{x, y + 1}),
+        args(garden, "west", Garden::west, (x, y, w, h) -> new int[]{x - 1, y}),
+        args(garden, "east", Garden::east, (x, y, w, h) -> new int[]{x + 1, y}),
+        args(garden, "rotate", Garden::rotate, (x, y, w, h) -> new int[]{w - 1 - x, h - 1 - y}),
+        args(garden, "mirror vertical", Garden::mirrorVertical,
+            (x, y, w, h) -> new int[]{x, h - 1 - y}),
+        args(garden, "mirror horizontal", Garden::mirrorHorizontal,
+            (x, y, w, h) -> new int[]{w - 1 - x, y})));
+  }
+
+  @ParameterizedTest
+  @MethodSource
+  void testTransform(final Garden garden, final BiFunction<Garden, Bitboard, Bitboard> transform,
+      final Move move) {
+    final int width = garden.width();
+    final int height = garden.height();
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        final int[] target = move.apply(x, y, width, height);
+        final boolean inside = target[0] >= 0 && target[0] < width
+            && target[1] >= 0 && target[1] < height;
+        final Bitboard expected = inside
+            ? Bitboard.tile(target[0] + width * target[1])
+            : Bitboard.EMPTY;
+
+        assertEquals(expected, transform.apply(garden, Bitboard.tile(x + width * y)),
+            "tile (" + x + ", " + y + ")");
+      }
+    }
+  }
+
+  static Stream<Arguments> testSquare() {
+    return Stream.of(
+        argumentSet("inside", 2, 3, 3, 9),
+        argumentSet("across words", 6, 6, 3, 9),
+        argumentSet("clipped", 8, 8, 3, 1),
+        argumentSet("empty", 4, 4, 0, 0));
+  }
+
+  @ParameterizedTest
+  @MethodSource
+  void testSquare(final int x, final int y, final int size, final int count) {
+    final Garden garden = Garden.DEFAULT;
+    final Bitboard square = garden.square(x, y, size);
+
+    assertEquals(count, square.count());
+    assertEquals(garden.region(x, y, size, size), square);
+    assertEquals(square, garden.plantable().and(square));
+  }
+
+  @Test
+  void testDefault() {
+    final Garden garden = Garden.DEFAULT;
+
+    assertSame(garden, Garden.of(9, 9, List.of()));
+    assertEquals(81, garden.area());
+    assertEquals(36, garden.border());
+    assertEquals(36, garden.horizontalPairs());
+    assertEquals(36, garden.verticalPairs());
+    assertEquals(40, garden.rotationalPairs());
+    assertEquals(3, garden.maxFit(0));
+    assertEquals(2, garden.maxFit(7));
+    assertEquals(1, garden.maxFit(80));
+    assertEquals(0, garden.fingerprint());
+  }
+
+  @Test
+  void testMask() {
+    final Garden garden = MASKED;
+
+    assertEquals(23, garden.area());
+    // each of the 5 rows and 7 columns is a single run with two ends
+    assertEquals(2 * 5 + 2 * 7, garden.border());
+    assertEquals(0, garden.maxFit(0));
+    assertEquals(3, garden.maxFit(2));
+    assertEquals(2, garden.maxFit(4 + 7));
+    assertEquals(1, garden.maxFit(2 * 7));
+    // the mask is symmetric, so every plantable tile of each region has a plantable partner
+    assertEquals(9, garden.horizontalPairs());
+    assertEquals(8, garden.verticalPairs());
+    assertEquals(11, garden.rotationalPairs());
+    assertEquals(garden, Garden.parse(garden.toString()));
+  }
+
+  @ParameterizedTest
+  @MethodSource("gardens")
+  void testPartners(final Garden garden) {
+    final List<IntUnaryOperator> partners = List.of(garden::horizontalPartner,
+        garden::verticalPartner, garden::rotationalPartner);
+    final List<Bitboard> regions = List.of(garden.horizontal(), garden.vertical(),
+        garden.rotational());
+    for (int symmetry = 0; symmetry < partners.size(); symmetry++) {
+      Bitboard compared = Bitboard.EMPTY;
+      for (int tile = 0; tile < garden.tiles(); tile++) {
+        final int partner = partners.get(symmetry).applyAsInt(tile);
+        if (partner >= 0) {
+          // pairs are made of two distinct plantable tiles, and each pair is compared once
+          assertTrue(garden.plantable(tile) && garden.plantable(partner));
+          assertEquals(-1, partners.get(symmetry).applyAsInt(partner), "tile " + tile);
+          compared = compared.or(Bitboard.tile(tile));
+        }
+      }
+      assertEquals(regions.get(symmetry), compared);
+    }
+    assertEquals(garden, Garden.parse(garden.toString()));
+  }
+
+  @Test
+  void testEquality() {
+    final Garden garden = Garden.of(8, 8, List.of());
+    final Garden same = Garden.parse("8x8");
+
+    // only the default garden is shared, others are equal by shape
+    assertNotSame(garden, same);
+    assertEquals(garden, same);
+    assertEquals(garden.hashCode(), same.hashCode());
+    assertEquals(garden.fingerprint(), same.fingerprint());
+    assertNotEquals(0, garden.fingerprint());
+    assertNotEquals(garden.fingerprint(), Garden.of(8, 9, List.of()).fingerprint());
+    assertNotEquals(garden.fingerprint(), MASKED.fingerprint());
+    assertSame(Garden.DEFAULT, Garden.parse("9x9"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"0x9", "12x11", "65x1", "2x2:##/#", "2x2:##/#x", "2x2:../.."})
+  void testInvalid(final String shape) {
+    assertThrows(IllegalArgumentException.class, () -> Garden.parse(shape));
+  }
+}
@@ -0,0 +1,130 @@
+package io.nuevedejun.gadantic;
+
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.fail;
+
+@io.quarkus.test.junit.QuarkusTest
+class JobResourceTest {
+
+  @Test
+  void testCompletedJob() throws InterruptedException {
+    final String id = submit(Map.of("generations", "3", "population-size", "10"));
+
+    awaitState(id, "COMPLETED");
+    given()
+        .when().get("/jobs/{id}", id)
+        .then()
+        .statusCode(200)
+        .body("generation", equalTo(3))
+        .body("termination", equalTo("GENERATIONS"))
+        .body("best.fitness", greaterThan(0f))
+        .body("best.crops", hasSize(81));
+    given()
+        .when().get("/q/metrics")
+        .then()
+        .statusCode(200)
+        .body(containsString("gadantic_generations_total"),
+            containsString("gadantic_phase_seconds_count{phase=\"evaluation\"}"));
+  }
+
+  @Test
+  void testCancelledJob() throws InterruptedException {
+    final String id = submit(Map.of("generations", "-1", "population-size", "10"));
+
+    given()
+        .when().delete("/jobs/{id}", id)
+        .then()
+        .statusCode(200);
+    awaitState(id, "CANCELLED");
+  }
+
+  @Test
+  void testEvents() {
+    final String id = submit(Map.of("generations", "-1", "population-size", "10"));
+    // the stream ends once the job is cancelled
+    final var cancel = CompletableFuture.runAsync(
+        () -> given().when().delete("/jobs/{id}", id).then().statusCode(200),
+        CompletableFuture.delayedExecutor(500, TimeUnit.MILLISECONDS));
+
+    given()
+        .when().get("/jobs/{id}/events", id)
+        .then()
+        .statusCode(200)
+        .contentType(containsString("text/event-stream"))
+        .body(containsString("event:progress"), containsString("event:best"),
+            containsString("layoutUrl"));
+    cancel.join();
+  }
+
+  @Test
+  void testSolve() throws InterruptedException {
+    final String id = submit(Map.of("generations", "3", "population-size", "10"));
+    awaitState(id, "COMPLETED");
+
+    final float fitness = given()
+        .when().get("/jobs/{id}", id)
+        .then().extract().path("best.fitness");
+    given()
+        .contentType(ContentType.JSON)
+        .body(Map.of("x", 3, "y", 3, "width", 2, "height", 2))
+        .when().post("/jobs/{id}/solve", id)
+        .then()
+        .statusCode(200)
+        .body("exact", equalTo(true))
+        .body("optimum.fitness", greaterThanOrEqualTo(fitness))
+        .body("optimum.crops", hasSize(81))
+        .body("bound", greaterThanOrEqualTo(fitness));
+  }
+
+  @Test
+  void testInvalidSettings() {
+    given()
+        .contentType(ContentType.JSON)
+        .body(Map.of("ga", Map.of("population-size", "many")))
+        .when().post("/jobs")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  void testUnknownJob() {
+    given()
+        .when().get("/jobs/{id}", "unknown")
+        .then()
+        .statusCode(404);
+  }
+
+  private static String submit(final Map<String, String> ga) {
+    return given()
+        .contentType(ContentType.JSON)
+        .body(Map.of("ga", ga, "fitness", Map.of("unique-crops", "2.0")))
+        .when().post("/jobs")
+        .then()
+        .statusCode(201)
+        .extract().path("id");
+  }
+
+  private static void awaitState(final String id, final String state)
+      throws InterruptedException {
+    for (int attempt = 0; attempt < 100; attempt++) {
+      final String actual = given().when().get("/jobs/{id}", id).then().extract().path("state");
+      if (state.equals(actual)) {
+        return;
+      }
+      Thread.sleep(100);
+    }
+    fail("Job " + id + " did not reach state " + state);
+  }
+}
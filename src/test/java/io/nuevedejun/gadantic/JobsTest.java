@@ -0,0 +1,168 @@
+package io.nuevedejun.gadantic;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class JobsTest {
+
+  private static final Map<String, String> ENDLESS = Map.of(
+      "generations", "-1", "population-size", "10");
+
+  @TempDir
+  Path temp;
+  private ResultStore store;
+
+  @AfterEach
+  void closeStore() {
+    // wait for the results of the cancelled jobs to be written before the directory is deleted
+    store.close();
+  }
+
+  private Jobs jobs(final int concurrency, final int capacity) {
+    return jobs(concurrency, capacity, Map.of());
+  }
+
+  private Jobs jobs(final int concurrency, final int capacity,
+      final Map<String, String> settings) {
+    final SmallRyeConfig config = new SmallRyeConfigBuilder()
+        .withMapping(Jobs.Settings.class)
+        .withMapping(FitnessCache.Settings.class)
+        .withMapping(ResultStore.Settings.class)
+        .withMapping(ExactSolver.Settings.class)
+        .withDefaultValue("jobs.parallelism", "2")
+        .withDefaultValue("jobs.concurrency", String.valueOf(concurrency))
+        .withDefaultValue("jobs.capacity", String.valueOf(capacity))
+        .withDefaultValue("results.enabled", "true")
+        .withDefaultValue("results.directory", temp.toString())
+        .withDefaultValues(settings)
+        .build();
+    final var constraint = new PlotConstraint(new Iterables.Shuffler.Impl());
+    store = new ResultStore(config.getConfigMapping(ResultStore.Settings.class));
+    return new Jobs(config.getConfigMapping(Jobs.Settings.class), config,
+        config.getConfigMapping(FitnessCache.Settings.class),
+        config.getConfigMapping(ExactSolver.Settings.class), constraint, store,
+        new EvolutionMetrics(new SimpleMeterRegistry(), constraint));
+  }
+
+  @Test
+  void testPriorityShare() throws InterruptedException {
+    try (final Jobs jobs = jobs(1, 2)) {
+      final Jobs.Job low = jobs.submit(new Jobs.Request(1, null, ENDLESS, null));
+      final Jobs.Job high = jobs.submit(new Jobs.Request(3, null, ENDLESS, null));
+      await(() -> low.generation() + high.generation() >= 40);
+      jobs.cancel(low.id());
+      jobs.cancel(high.id());
+
+      final double share = (double) high.generation() / low.generation();
+      assertTrue(share > 2 && share < 4, () -> "Unexpected share " + share);
+    }
+  }
+
+  @Test
+  void testAdmission() throws InterruptedException {
+    try (final Jobs jobs = jobs(1, 1)) {
+      final Jobs.Job job = jobs.submit(new Jobs.Request(null, null, ENDLESS, null));
+      final var request = new Jobs.Request(null, null, ENDLESS, null);
+      assertThrows(RejectedExecutionException.class, () -> jobs.submit(request));
+
+      jobs.cancel(job.id());
+      await(() -> job.state() == Jobs.State.CANCELLED);
+      assertEquals(Jobs.State.RUNNING, jobs.submit(request).state());
+    }
+  }
+
+  @Test
+  void testStoredResult() throws InterruptedException {
+    try (final Jobs jobs = jobs(1, 2)) {
+      final var ga = Map.of("generations", "3", "population-size", "10");
+      final Jobs.Job evolved = jobs.submit(new Jobs.Request(null, null, ga, null));
+      await(() -> evolved.state() == Jobs.State.COMPLETED);
+
+      // the same fitness function at a different scale is served without evolving
+      final Jobs.Job cached = jobs.submit(new Jobs.Request(null,
+          Map.of("water-retention", "2.0", "weed-prevention", "2.0", "quality-boost", "2.0",
+              "harvest-increase", "2.0", "unique-crops", "2.0", "buff-efficiency", "2.0"),
+          ga, true));
+      assertEquals(Jobs.State.COMPLETED, cached.state());
+      assertEquals(evolved.best().orElseThrow(), cached.best().orElseThrow());
+
+      // an evolving job resumes from it
+      final Jobs.Job resumed = jobs.submit(new Jobs.Request(null, null, ga, false));
+      await(() -> resumed.state() == Jobs.State.COMPLETED);
+      assertEquals(6, resumed.generation());
+      assertTrue(resumed.best().orElseThrow().fitness()
+          >= evolved.best().orElseThrow().fitness());
+    }
+  }
+
+  @Test
+  void testTermination() throws InterruptedException {
+    try (final Jobs jobs = jobs(1, 1)) {
+      final var ga = Map.of("generations", "-1", "population-size", "10",
+          "termination.time-limit-millis", "200");
+      final Jobs.Job job = jobs.submit(new Jobs.Request(null, null, ga, null));
+      await(() -> job.state() == Jobs.State.COMPLETED);
+
+      assertEquals(Optional.of(EvolutionLimit.Rule.TIME_LIMIT), job.termination());
+    }
+  }
+
+  @Test
+  void testEviction() throws InterruptedException {
+    final var ga = Map.of("generations", "2", "population-size", "10");
+    try (final Jobs jobs = jobs(1, 2, Map.of("jobs.retained", "1"))) {
+      final Jobs.Job first = jobs.submit(new Jobs.Request(null, null, ga, null));
+      await(() -> first.state() == Jobs.State.COMPLETED);
+      assertEquals(Optional.of(first), jobs.get(first.id()));
+
+      // the next finished job pushes the first one out, whose result is still served
+      final Jobs.Job second = jobs.submit(new Jobs.Request(null, null, ga, true));
+      assertEquals(Jobs.State.COMPLETED, second.state());
+      assertEquals(Optional.empty(), jobs.get(first.id()));
+      assertEquals(List.of(second), List.copyOf(jobs.list()));
+      assertEquals(first.best(), second.best());
+    }
+    try (final Jobs jobs = jobs(1, 2, Map.of("jobs.retention-millis", "0"))) {
+      final Jobs.Job job = jobs.submit(new Jobs.Request(null, null, ga, null));
+      await(() -> job.state() == Jobs.State.COMPLETED);
+
+      assertEquals(Optional.empty(), jobs.get(job.id()));
+    }
+  }
+
+  @Test
+  void testInvalidPriority() {
+    try (final Jobs jobs = jobs(1, 1)) {
+      final var request = new Jobs.Request(Jobs.MAX_PRIORITY + 1, null, ENDLESS, null);
+      assertThrows(IllegalArgumentException.class, () -> jobs.submit(request));
+      // rejected jobs do not count towards the capacity
+      jobs.submit(new Jobs.Request(Jobs.MIN_PRIORITY, null, ENDLESS, null));
+    }
+  }
+
+  private static void await(final BooleanSupplier condition) throws InterruptedException {
+    for (int attempt = 0; attempt < 100; attempt++) {
+      if (condition.getAsBoolean()) {
+        return;
+      }
+      Thread.sleep(100);
+    }
+    fail("Condition not reached");
+  }
+}
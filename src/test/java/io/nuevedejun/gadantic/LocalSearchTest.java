@@ -0,0 +1,95 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerGene;
+import io.jenetics.Optimize;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionDurations;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.util.ISeq;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuevedejun.gadantic.PlotDecoder.Kernel;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalSearchTest {
+
+  private static final FitnessCoefficients COEFFICIENTS = new SmallRyeConfigBuilder()
+      .withMapping(FitnessCoefficients.class)
+      .withDefaultValue("fitness.quality-boost", "2.0")
+      .withDefaultValue("fitness.horizontal-symmetry", "0.5")
+      .build().getConfigMapping(FitnessCoefficients.class);
+
+  private static final PlotEncoding ENCODING = PlotEncoding.of(PlotEncoding.Kind.GREEDY);
+
+  private static GeneticProperties properties(final int elite, final double temperature) {
+    return new SmallRyeConfigBuilder()
+        .withMapping(GeneticProperties.class)
+        .withDefaultValue("ga.evaluation.strategy", "VIRTUAL")
+        .withDefaultValue("ga.local-search.elite", String.valueOf(elite))
+        .withDefaultValue("ga.local-search.steps", "2000")
+        .withDefaultValue("ga.local-search.temperature", String.valueOf(temperature))
+        .build().getConfigMapping(GeneticProperties.class);
+  }
+
+  private static double fitness(final Genotype<IntegerGene> genotype) {
+    return PlotPhenotype.Impl.score(COEFFICIENTS, PlotPhenotype.Impl.normalize(COEFFICIENTS),
+        new Kernel().evaluate(ENCODING.decode(genotype)));
+  }
+
+  private static EvolutionResult<IntegerGene, Double> result() {
+    final var population = ENCODING.encoding().instances().limit(20)
+        .map(genotype -> Phenotype.<IntegerGene, Double>of(genotype, 1, fitness(genotype)))
+        .collect(ISeq.toISeq());
+    return EvolutionResult.of(Optimize.MAXIMUM, population, 1, EvolutionDurations.ZERO, 0, 0, 0);
+  }
+
+  private static EvolutionResult<IntegerGene, Double> refine(final GeneticProperties properties,
+      final EvolutionResult<IntegerGene, Double> result) {
+    final var metrics = new EvolutionMetrics(new SimpleMeterRegistry(),
+        new PlotConstraint(new PrioritizedShuffler()));
+    try (final var evaluator = new FitnessEvaluator(null, properties, metrics)) {
+      return new LocalSearch(properties, COEFFICIENTS, ENCODING, evaluator, metrics)
+          .refine(result);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(doubles = {0, 0.01})
+  void testRefine(final double temperature) {
+    final var result = result();
+
+    final var refined = refine(properties(3, temperature), result);
+
+    assertEquals(result.population().size(), refined.population().size());
+    assertTrue(refined.bestFitness() > result.bestFitness(), "The best plot did not improve");
+    final var constraint = new PlotConstraint(new PrioritizedShuffler());
+    int changed = 0;
+    for (int i = 0; i < result.population().size(); i++) {
+      final var individual = refined.population().get(i);
+      if (individual != result.population().get(i)) {
+        changed++;
+        assertTrue(individual.fitness() > result.population().get(i).fitness());
+        // refined individuals are valid plots, which decode to themselves
+        assertTrue(constraint.test(individual));
+        assertEquals(individual.genotype(), ENCODING.decode(individual.genotype()));
+      }
+      // the incremental evaluation of the moves matches a full one
+      assertEquals(fitness(individual.genotype()), individual.fitness(), 1e-12);
+    }
+    assertTrue(changed <= 3, "More individuals than the elite were refined");
+  }
+
+  @Test
+  void testDisabled() {
+    final var result = result();
+    assertSame(result, refine(properties(0, 0), result));
+  }
+}
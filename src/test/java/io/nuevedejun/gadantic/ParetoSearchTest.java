@@ -0,0 +1,60 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.ext.moea.Vec;
+import io.nuevedejun.gadantic.PlotEncoding.Kind;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParetoSearchTest {
+
+  @ParameterizedTest
+  @EnumSource(Kind.class)
+  void testEvolve(final Kind kind) {
+    final SmallRyeConfig config = new SmallRyeConfigBuilder()
+        .withMapping(GeneticProperties.class)
+        .withMapping(FitnessCoefficients.class)
+        .withMapping(FitnessCache.Settings.class)
+        .withDefaultValue("ga.generations", "15")
+        .withDefaultValue("ga.population-size", "40")
+        .withDefaultValue("ga.evaluation.incremental-limit", "0")
+        .withDefaultValue("ga.pareto.objectives", "water,harvest,unique,horizontal-symmetry")
+        .withDefaultValue("ga.pareto.front-size", "5")
+        .withDefaultValue("fitness.horizontal-symmetry", "0.5")
+        .withDefaultValue("fitness-cache.size", "0")
+        .build();
+    final var properties = config.getConfigMapping(GeneticProperties.class);
+    final var coefficients = config.getConfigMapping(FitnessCoefficients.class);
+    final var encoding = PlotEncoding.of(kind);
+    final var search = new ParetoSearch(properties, coefficients, encoding,
+        new PlotConstraint(new PrioritizedShuffler()), Runnable::run);
+    final var phenotype = new PlotPhenotype.Impl(coefficients, encoding,
+        new FitnessCache(config.getConfigMapping(FitnessCache.Settings.class)),
+        new Lineage(properties));
+
+    final var front = search.evolve(() -> false);
+
+    assertFalse(front.isEmpty());
+    assertTrue(front.size() <= 10, "front of " + front.size());
+    for (int i = 0; i < front.size(); i++) {
+      final var individual = front.get(i);
+      // the weighted fitness is the one the coefficients give, and the front is sorted by it
+      assertEquals(phenotype.fitness(individual.genotype()), individual.fitness());
+      if (i > 0) {
+        assertTrue(front.get(i - 1).fitness() >= individual.fitness());
+      }
+      final Vec<double[]> objectives = search.objectives(individual.genotype());
+      assertEquals(4, objectives.length());
+      for (final var other : front) {
+        assertTrue(search.objectives(other.genotype()).dominance(objectives) <= 0,
+            "dominated plot in the front");
+      }
+    }
+  }
+}
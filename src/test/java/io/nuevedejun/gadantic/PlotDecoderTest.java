@@ -1,15 +1,20 @@
 package io.nuevedejun.gadantic;
 
 import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
 import io.jenetics.IntegerGene;
+import io.jenetics.util.RandomRegistry;
 import io.nuevedejun.gadantic.Iterables.Cell;
 import io.nuevedejun.gadantic.PlotPhenotype.Crop;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static io.nuevedejun.gadantic.PlotCodec.encode;
 import static io.nuevedejun.gadantic.PlotPhenotype.Crop.APPLES;
@@ -29,6 +34,7 @@
 import static io.nuevedejun.gadantic.PlotPhenotype.Crop.WHEAT;
 import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.argumentSet;
 
@@ -114,5 +120,102 @@ void testDecode(final int[] array, final Set<Cell<Crop>> expectedCrops, final in
     assertEquals(expectedDistinct, result.unique());
     assertTrue(Math.abs(expectedEfficiency - result.efficiency()) < 1e-5);
     assertEquals(expectedUrl, result.layoutUrl());
+    assertSameStatistics(result, new PlotDecoder.Kernel().evaluate(genotype));
+  }
+
+  @Test
+  void testKernelMatchesDecode() {
+    final var constraint = new PlotConstraint(new Iterables.Shuffler.Impl());
+    final var factory = constraint.constrain(Genotype.of(IntegerChromosome.of(0, Crop.len(), 81)));
+    // the same kernel is reused to verify that no state leaks between evaluations
+    final var kernel = new PlotDecoder.Kernel();
+
+    factory.instances().limit(500).forEach(genotype ->
+        assertSameStatistics(decoder.decode(genotype), kernel.evaluate(genotype)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"7x11", "11x11", "7x5:..###../.#####./#######/.#####./..###.."})
+  void testKernelMatchesDecodeOfGarden(final String shape) {
+    final Garden garden = Garden.parse(shape);
+    final var constraint = new PlotConstraint(new Iterables.Shuffler.Impl(), garden);
+    final var factory = constraint.constrain(PlotEncoding.of(PlotEncoding.Kind.DIRECT, garden)
+        .encoding());
+    final var kernel = new PlotDecoder.Kernel(garden);
+
+    factory.instances().limit(200).forEach(genotype -> {
+      final Plot plot = decoder.decode(genotype, garden);
+      assertEquals(garden, plot.garden());
+      assertTrue(plot.crops().stream().allMatch(crop -> garden.plantable(crop.x + garden.width()
+          * crop.y)));
+      assertSameStatistics(plot, kernel.evaluate(genotype));
+    });
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 4, 81})
+  void testIncrementalMatchesDecode(final int limit) {
+    final var constraint = new PlotConstraint(new Iterables.Shuffler.Impl());
+    final var factory = constraint.constrain(Genotype.of(IntegerChromosome.of(0, Crop.len(), 81)));
+    final var random = RandomRegistry.random();
+    final var kernel = new PlotDecoder.Kernel();
+
+    // every child is evaluated from the snapshot of its parent, which was itself incremental
+    var genotype = factory.newInstance();
+    var snapshot = kernel.evaluate(genotype).snapshot();
+    for (int i = 0; i < 300; i++) {
+      final int[] genes = genotype.chromosome().as(IntegerChromosome.class).toArray();
+      for (int changes = random.nextInt(1, 6); changes > 0; changes--) {
+        genes[random.nextInt(genes.length)] = random.nextInt(Crop.len());
+      }
+      var child = encode(genes);
+      if (!constraint.test(child)) {
+        child = constraint.repair(child, 1);
+      }
+      genotype = child.genotype();
+
+      kernel.evaluate(snapshot, genotype, limit);
+
+      assertSameStatistics(decoder.decode(genotype), kernel);
+      snapshot = kernel.snapshot();
+    }
+  }
+
+  @Test
+  void testLayoutIgnoresCoveredGenes() {
+    final var constraint = new PlotConstraint(new Iterables.Shuffler.Impl());
+    final var factory = constraint.constrain(Genotype.of(IntegerChromosome.of(0, Crop.len(), 81)));
+    final var kernel = new PlotDecoder.Kernel();
+
+    factory.instances().limit(100).forEach(genotype -> {
+      final int[] genes = genotype.chromosome().as(IntegerChromosome.class).toArray();
+      final Set<Integer> origins = decoder.decode(genotype).crops().stream()
+          .map(crop -> crop.x + 9 * crop.y)
+          .collect(Collectors.toSet());
+      final int[] covered = genes.clone();
+      for (int tile = 0; tile < genes.length; tile++) {
+        if (!origins.contains(tile)) {
+          covered[tile] = (genes[tile] + 1) % Crop.len();
+        }
+      }
+      final int[] moved = genes.clone();
+      moved[0] = (genes[0] + 1) % Crop.len();
+
+      final PlotDecoder.Layout layout = kernel.layout(genotype);
+      assertEquals(layout, kernel.layout(encode(covered).genotype()));
+      assertNotEquals(layout, kernel.layout(encode(moved).genotype()));
+    });
+  }
+
+  private static void assertSameStatistics(final Plot expected, final PlotDecoder.Kernel actual) {
+    assertEquals(expected.water(), actual.water());
+    assertEquals(expected.weed(), actual.weed());
+    assertEquals(expected.quality(), actual.quality());
+    assertEquals(expected.harvest(), actual.harvest());
+    assertEquals(expected.unique(), actual.unique());
+    assertEquals(expected.efficiency(), actual.efficiency());
+    assertEquals(expected.horizontalSymmetry(), actual.horizontalSymmetry());
+    assertEquals(expected.verticalSymmetry(), actual.verticalSymmetry());
+    assertEquals(expected.rotationalSymmetry(), actual.rotationalSymmetry());
   }
 }
@@ -0,0 +1,81 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.util.RandomRegistry;
+import io.nuevedejun.gadantic.PlotEncoding.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static io.nuevedejun.gadantic.PlotCodec.decode;
+import static io.nuevedejun.gadantic.PlotCodec.encode;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlotEncodingTest {
+
+  final PlotEncoding greedy = PlotEncoding.of(Kind.GREEDY);
+
+  @Test
+  void testDirectIsIdentity() {
+    final var genotype = Genotype.of(IntegerChromosome.of(0, 15, 81));
+    assertSame(genotype, PlotEncoding.of(Kind.DIRECT).decode(genotype));
+  }
+
+  @Test
+  void testGreedyFallsBackToSmallerCrops() {
+    final int[] apples = new int[81];
+    Arrays.fill(apples, 14);
+    final int[] expected = {
+        // @formatter:off
+          14,   0,   0,  14,   0,   0,  14,   0,   0,
+           0,   0,   0,   0,   0,   0,   0,   0,   0,
+           0,   0,   0,   0,   0,   0,   0,   0,   0,
+          14,   0,   0,  14,   0,   0,  14,   0,   0,
+           0,   0,   0,   0,   0,   0,   0,   0,   0,
+           0,   0,   0,   0,   0,   0,   0,   0,   0,
+          14,   0,   0,  14,   0,   0,  14,   0,   0,
+           0,   0,   0,   0,   0,   0,   0,   0,   0,
+           0,   0,   0,   0,   0,   0,   0,   0,   0
+        // @formatter:on
+    };
+    assertArrayEquals(expected, place(apples));
+
+    // apples shifted one column right no longer fit at the edges: blueberries or rice take over
+    final int[] shifted = apples.clone();
+    shifted[0] = 9;
+    final int[] fallback = {
+        // @formatter:off
+           9,  14,   0,   0,  14,   0,   0,  10,   0,
+           3,   0,   0,   0,   0,   0,   0,   0,   0,
+           3,   0,   0,   0,   0,   0,   0,  10,   0,
+          14,   0,   0,  14,   0,   0,   3,   0,   0,
+           0,   0,   0,   0,   0,   0,  14,   0,   0,
+           0,   0,   0,   0,   0,   0,   0,   0,   0,
+          14,   0,   0,  14,   0,   0,   0,   0,   0,
+           0,   0,   0,   0,   0,   0,  10,   0,   3,
+           0,   0,   0,   0,   0,   0,   0,   0,   3
+        // @formatter:on
+    };
+    assertArrayEquals(fallback, place(shifted));
+  }
+
+  @Test
+  void testGreedyAlwaysValid() {
+    final var constraint = new PlotConstraint(new PrioritizedShuffler());
+    RandomRegistry.using(new Random(0), random -> greedy.encoding().instances()
+        .limit(1000)
+        .map(greedy::decode)
+        .forEach(plot -> assertTrue(constraint.test(Phenotype.<IntegerGene, Double>of(plot, 1)),
+            () -> Arrays.toString(decode(Phenotype.of(plot, 1))))));
+  }
+
+  private int[] place(final int[] genes) {
+    return decode(Phenotype.of(greedy.decode(encode(genes).genotype()), 1));
+  }
+}
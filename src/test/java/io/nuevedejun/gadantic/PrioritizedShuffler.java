@@ -44,4 +44,17 @@ public <T> List<T> shuffle(final Iterable<? extends T> original) {
 
     return List.copyOf(aux);
   }
+
+  @Override
+  public void shuffle(final int[] tiles, final int width) {
+    final LinkedHashSet<Integer> aux = new LinkedHashSet<>();
+    priority.forEach(c -> aux.add(c.x() + width * c.y()));
+    for (int tile = 0; tile < tiles.length; tile++) {
+      aux.add(tile);
+    }
+    int i = 0;
+    for (final int tile : aux) {
+      tiles[i++] = tile;
+    }
+  }
 }
@@ -0,0 +1,111 @@
+package io.nuevedejun.gadantic;
+
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.util.ISeq;
+import io.nuevedejun.gadantic.PlotEncoding.Kind;
+import io.nuevedejun.gadantic.PlotPhenotype.FitnessCoefficients;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultStoreTest {
+
+  private static final PlotEncoding DIRECT = PlotEncoding.of(Kind.DIRECT);
+  private static final PlotEncoding GREEDY = PlotEncoding.of(Kind.GREEDY);
+
+  @TempDir
+  Path temp;
+
+  private ResultStore store(final String warmStartDistance) {
+    return new ResultStore(new SmallRyeConfigBuilder()
+        .withMapping(ResultStore.Settings.class)
+        .withDefaultValue("results.enabled", "true")
+        .withDefaultValue("results.directory", temp.toString())
+        .withDefaultValue("results.count", "5")
+        .withDefaultValue("results.warm-start-distance", warmStartDistance)
+        .build().getConfigMapping(ResultStore.Settings.class));
+  }
+
+  private static FitnessCoefficients coefficients(final String scale, final String uniqueCrops) {
+    final var builder = new SmallRyeConfigBuilder().withMapping(FitnessCoefficients.class);
+    for (final String name : new String[]{"water-retention", "weed-prevention", "quality-boost",
+        "harvest-increase", "buff-efficiency"}) {
+      builder.withDefaultValue("fitness." + name, scale);
+    }
+    return builder.withDefaultValue("fitness.unique-crops", uniqueCrops)
+        .build().getConfigMapping(FitnessCoefficients.class);
+  }
+
+  /** Individuals with fitness 1 to 10. */
+  private static ISeq<Phenotype<IntegerGene, Double>> population(final long generation) {
+    final var factory = Genotype.of(IntegerChromosome.of(0, 15, 81));
+    final AtomicInteger fitness = new AtomicInteger();
+    return factory.instances().limit(10)
+        .map(g -> Phenotype.of(g, generation, (double) fitness.incrementAndGet()))
+        .collect(ISeq.toISeq());
+  }
+
+  @Test
+  void testScaledCoefficientsShareResults() {
+    final var population = population(7);
+    final EvolutionStart<IntegerGene, Double> start;
+    try (final ResultStore store = store("0")) {
+      store.store(coefficients("1.0", "1.0"), DIRECT, 7, population);
+      start = store.start(coefficients("3.0", "3.0"), DIRECT);
+
+      assertEquals(population.get(9),
+          store.best(coefficients("0.5", "0.5"), DIRECT).orElseThrow());
+      assertTrue(store.best(coefficients("1.0", "1.0"), GREEDY).isEmpty());
+    }
+    // only the best are kept, fitness included, and evolution goes on after their generation
+    assertEquals(8, start.generation());
+    assertEquals(ISeq.of(10.0, 9.0, 8.0, 7.0, 6.0), start.population().map(Phenotype::fitness));
+  }
+
+  @Test
+  void testReload() {
+    try (final ResultStore store = store("0")) {
+      store.store(coefficients("1.0", "1.0"), GREEDY, 3, population(3));
+      store.store(coefficients("1.0", "1.0"), GREEDY, 4, population(4));
+    }
+
+    final EvolutionStart<IntegerGene, Double> start;
+    try (final ResultStore store = store("0")) {
+      start = store.start(coefficients("1.0", "1.0"), GREEDY);
+    }
+    // both results are merged, without repeating genotypes
+    assertEquals(5, start.generation());
+    assertEquals(ISeq.of(10.0, 10.0, 9.0, 9.0, 8.0), start.population().map(Phenotype::fitness));
+    assertEquals(5, start.population().map(Phenotype::genotype).stream().distinct().count());
+  }
+
+  @Test
+  void testWarmStart() {
+    try (final ResultStore store = store("0.1")) {
+      store.store(coefficients("1.0", "1.0"), DIRECT, 7, population(7));
+
+      final var close = store.start(coefficients("1.0", "1.5"), DIRECT);
+      assertEquals(5, close.population().size());
+      assertTrue(close.population().forAll(Phenotype::nonEvaluated));
+      assertTrue(store.best(coefficients("1.0", "1.5"), DIRECT).isEmpty());
+
+      // too far away, or for genotypes of another encoding or garden
+      assertTrue(store.start(coefficients("1.0", "5.0"), DIRECT).population().isEmpty());
+      assertTrue(store.start(coefficients("1.0", "1.5"), GREEDY).population().isEmpty());
+      final var smaller = PlotEncoding.of(Kind.DIRECT, Garden.of(8, 8, List.of()));
+      assertTrue(store.start(coefficients("1.0", "1.5"), smaller).population().isEmpty());
+      assertTrue(store.best(coefficients("1.0", "1.0"), smaller).isEmpty());
+    }
+  }
+}